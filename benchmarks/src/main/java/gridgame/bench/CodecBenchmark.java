@@ -0,0 +1,99 @@
+package gridgame.bench;
+
+import gridgame.GameSettings;
+import gridgame.Grid;
+import gridgame.MessageCodec;
+import gridgame.TokenColor;
+import gridgame.TokenInventory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of the init, turn-result and negotiation payloads, in
+ * the binary form and in the old textual form for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    private MessageCodec.Init init;
+    private MessageCodec.TurnResult turnResult;
+    private MessageCodec.TradeProposal proposal;
+
+    private byte[] initBytes, turnResultBytes, proposalBytes;
+    private String initText, turnResultText, proposalText;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(1);
+        GameSettings settings = GameSettings.defaults();
+        TokenColor[] palette = TokenColor.palette(settings.numColors());
+
+        TokenInventory tokens = new TokenInventory();
+        for (int i = 0; i < settings.tokensPerPlayer(); i++) tokens.give(palette[rand.nextInt(palette.length)]);
+
+        Grid grid = Grid.generate(settings.gridWidth(), settings.gridHeight(), palette, 1L);
+        init = new MessageCodec.Init(1, 2, 5, 4, tokens, List.of("Player1", "Player2", "Player3", "Player4"), settings, grid, 1L);
+        turnResult = new MessageCodec.TurnResult(3, 4, tokens, true);
+        proposal = new MessageCodec.TradeProposal(TokenColor.BLUE, TokenColor.GREEN, 12);
+
+        initBytes = MessageCodec.encode(init);
+        turnResultBytes = MessageCodec.encode(turnResult);
+        proposalBytes = MessageCodec.encode(proposal);
+        initText = init.toText();
+        turnResultText = turnResult.toText();
+        proposalText = proposal.toText();
+    }
+
+    @Benchmark
+    public byte[] encodeInit() {
+        return MessageCodec.encode(init);
+    }
+
+    @Benchmark
+    public MessageCodec.Message decodeInit() {
+        return MessageCodec.decode(initBytes);
+    }
+
+    @Benchmark
+    public MessageCodec.Message parseInitText() {
+        return MessageCodec.fromText("init", initText);
+    }
+
+    @Benchmark
+    public byte[] encodeTurnResult() {
+        return MessageCodec.encode(turnResult);
+    }
+
+    @Benchmark
+    public MessageCodec.Message decodeTurnResult() {
+        return MessageCodec.decode(turnResultBytes);
+    }
+
+    @Benchmark
+    public MessageCodec.Message parseTurnResultText() {
+        return MessageCodec.fromText("turn-result", turnResultText);
+    }
+
+    @Benchmark
+    public byte[] encodeProposal() {
+        return MessageCodec.encode(proposal);
+    }
+
+    @Benchmark
+    public MessageCodec.Message decodeProposal() {
+        return MessageCodec.decode(proposalBytes);
+    }
+
+    @Benchmark
+    public MessageCodec.Message parseProposalText() {
+        return MessageCodec.fromText("negotiation", proposalText);
+    }
+}
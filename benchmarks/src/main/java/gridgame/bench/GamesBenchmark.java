@@ -0,0 +1,46 @@
+package gridgame.bench;
+
+import gridgame.GameEngine;
+import gridgame.GameResult;
+import gridgame.GameSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end headless games per second on one thread, each with a new seed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GamesBenchmark {
+
+    // "default" is GameConfig's board; the others are square boards of that side
+    @Param({"default", "20", "50"})
+    public String board;
+
+    private GameSettings settings;
+    private long seed = 1;
+
+    @Setup
+    public void setup() {
+        settings = GameSettings.defaults();
+        if (!board.equals("default")) {
+            int side = Integer.parseInt(board);
+            settings = settings.with(Map.of(
+                    "gridWidth", board,
+                    "gridHeight", board,
+                    "tokensPerPlayer", String.valueOf(side),
+                    "maxGameTurns", String.valueOf(side * 40)));
+        }
+    }
+
+    @Benchmark
+    public GameResult playGame() {
+        return new GameEngine(settings, seed++).run();
+    }
+}
@@ -0,0 +1,54 @@
+package gridgame.bench;
+
+import gridgame.Grid;
+import gridgame.PathPlanner;
+import gridgame.TokenColor;
+import gridgame.TokenInventory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path planning on square boards of increasing size: a full plan from one
+ * corner to the other, and a step along an already cached route.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PlannerBenchmark {
+
+    @Param({"16", "64", "256", "1024"})
+    public int size;
+
+    private Grid grid;
+    private TokenInventory tokens;
+    private PathPlanner cached;
+
+    @Setup
+    public void setup() {
+        TokenColor[] palette = TokenColor.palette(4);
+        grid = Grid.generate(size, size, palette, 1L);
+
+        // Enough tokens for the whole trip, but not in the colors the straight route needs
+        Random rand = new Random(1);
+        tokens = new TokenInventory();
+        for (int i = 0; i < 2 * size; i++) tokens.give(palette[rand.nextInt(palette.length)]);
+
+        cached = new PathPlanner(grid, size - 1, size - 1);
+        cached.nextStep(0, 0, tokens);
+    }
+
+    @Benchmark
+    public int plan() {
+        return new PathPlanner(grid, size - 1, size - 1).nextStep(0, 0, tokens);
+    }
+
+    @Benchmark
+    public int cachedStep() {
+        return cached.nextStep(0, 0, tokens);
+    }
+}
@@ -0,0 +1,113 @@
+package gridgame.bench;
+
+import gridgame.NegotiationStrategies;
+import gridgame.TokenColor;
+import gridgame.TokenInventory;
+import gridgame.TradeMemory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trade partner and offer selection as the game does it (the DEFAULT and
+ * REPUTATION NegotiationStrategies on a filled TradeMemory), next to the
+ * list/HashMap versions PlayerAgent used before (re-sorting the other
+ * players, counting tokens into a fresh HashMap) as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TradeBenchmark {
+
+    @Param({"4", "100", "1000"})
+    public int players;
+
+    private List<String> otherPlayers;
+    private TradeMemory memory;
+    private TokenInventory tokens;
+    private List<String> tokenList;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(1);
+        otherPlayers = new ArrayList<>();
+        memory = new TradeMemory();
+        for (int i = 1; i < players; i++) otherPlayers.add("Player" + i);
+        // A game's worth of trades: every player betrayed us a few times and paid some, over 100 rounds
+        for (int round = 1; round <= 100; round++) {
+            for (int t = 0; t < Math.max(1, players / 20); t++) {
+                String partner = otherPlayers.get(rand.nextInt(otherPlayers.size()));
+                if (rand.nextBoolean()) memory.betrayedBy(partner, round); else memory.paidBy(partner, round);
+            }
+        }
+        for (String partner : otherPlayers) memory.betrayedBy(partner, 100);
+
+        tokens = new TokenInventory();
+        tokenList = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            TokenColor c = TokenColor.of(rand.nextInt(4));
+            tokens.give(c);
+            tokenList.add(c.toString());
+        }
+    }
+
+    // The other players in a fresh random order for every call, so the sorting baselines never get a sorted list
+    @State(Scope.Thread)
+    public static class Unsorted {
+        private final Random rand = new Random(2);
+        private List<String> players;
+
+        @Setup(Level.Invocation)
+        public void shuffle(TradeBenchmark benchmark) {
+            if (players == null) players = new ArrayList<>(benchmark.otherPlayers);
+            Collections.shuffle(players, rand);
+        }
+    }
+
+    @Benchmark
+    public String defaultPartner() {
+        return NegotiationStrategies.DEFAULT.choosePartner(otherPlayers, memory);
+    }
+
+    @Benchmark
+    public String defaultPartnerBySorting(Unsorted unsorted) {
+        unsorted.players.sort(Comparator.comparingInt(memory::betrayals));
+        return unsorted.players.get(0);
+    }
+
+    @Benchmark
+    public String reputationPartner() {
+        return NegotiationStrategies.REPUTATION.choosePartner(otherPlayers, memory);
+    }
+
+    @Benchmark
+    public String reputationPartnerBySorting(Unsorted unsorted) {
+        unsorted.players.sort(Comparator.comparingDouble(memory::trust).reversed());
+        return unsorted.players.get(0);
+    }
+
+    @Benchmark
+    public TokenColor selectOfferToken() {
+        return NegotiationStrategies.DEFAULT.chooseOffer(tokens, TokenColor.BLUE);
+    }
+
+    @Benchmark
+    public String selectOfferTokenFromList() {
+        Map<String, Integer> tokenCounts = new HashMap<>();
+        for (String t : tokenList) tokenCounts.put(t, tokenCounts.getOrDefault(t, 0) + 1);
+
+        String bestOffer = tokenList.get(0);
+        int maxCount = 1;
+        for (Map.Entry<String, Integer> e : tokenCounts.entrySet()) {
+            if (e.getValue() > maxCount) {
+                maxCount = e.getValue();
+                bestOffer = e.getKey();
+            }
+        }
+        return bestOffer;
+    }
+}
@@ -0,0 +1,52 @@
+package gridgame.bench;
+
+import gridgame.GameEngine;
+import gridgame.GameSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turn resolution throughput of the headless engine: one op is one
+ * GameEngine.step() (move, or trade when blocked). A finished game is
+ * replaced by a fresh one, which is amortized over its turns.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TurnBenchmark {
+
+    // Board side; players get twice that many tokens so games last a while
+    @Param({"7", "50", "200"})
+    public int size;
+
+    private GameSettings settings;
+    private GameEngine engine;
+    private long seed = 1;
+
+    @Setup
+    public void setup() {
+        settings = GameSettings.defaults().with(Map.of(
+                "gridWidth", String.valueOf(size),
+                "gridHeight", String.valueOf(size),
+                "tokensPerPlayer", String.valueOf(size * 2),
+                "maxGameTurns", "1000000"));
+        newGame();
+    }
+
+    private void newGame() {
+        engine = new GameEngine(settings, seed++);
+        engine.start();
+    }
+
+    @Benchmark
+    public boolean step() {
+        boolean running = engine.step();
+        if (!running) newGame();
+        return running;
+    }
+}
@@ -0,0 +1,98 @@
+package gridgame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class GameStatusTest {
+
+    private static GameSettings settings(int players, int finishers) {
+        return GameSettings.defaults().with("numPlayers", String.valueOf(players)).with("finishers", String.valueOf(finishers))
+                .with("maxBlockedTurns", "3").with("maxGameTurns", "100");
+    }
+
+    @Test
+    void ranksPlayersInOrderOfArrival() {
+        GameStatus status = new GameStatus(settings(4, 2), 4);
+        status.played(2, true, 0);
+        assertNull(status.outcome(5));
+        status.played(0, false, 1);
+        status.played(1, true, 0);
+
+        assertEquals(GameResult.Outcome.WIN, status.outcome(6));
+        assertEquals(2, status.winner());
+        assertEquals(1, status.rank(2));
+        assertEquals(2, status.rank(1));
+        assertEquals(0, status.rank(0));
+        assertTrue(status.inPlay(0));
+    }
+
+    @Test
+    void eliminatesOnTheBlockedStreak() {
+        GameStatus status = new GameStatus(settings(3, 1), 3);
+        status.played(1, false, 2);
+        assertTrue(status.inPlay(1));
+        status.played(1, false, 3);
+        assertTrue(status.isEliminated(1));
+        assertFalse(status.inPlay(1));
+        assertEquals(0, status.rank(1));
+        assertEquals(2, status.active());
+    }
+
+    @Test
+    void skipsPlayersThatAreOutInRotation() {
+        GameStatus status = new GameStatus(settings(4, 4), 4);
+        status.played(1, true, 0);
+        status.played(2, false, 3);
+
+        assertEquals(3, status.next(0));
+        assertEquals(0, status.next(3));
+        // A seat that just left still leads to the next active one
+        assertEquals(3, status.next(2));
+    }
+
+    @Test
+    void endsWithADrawWhenNobodyIsLeft() {
+        GameStatus status = new GameStatus(settings(2, 1), 2);
+        status.played(0, false, 3);
+        assertNull(status.outcome(1));
+        status.played(1, false, 3);
+        assertEquals(GameResult.Outcome.DRAW, status.outcome(2));
+        assertEquals(-1, status.winner());
+    }
+
+    @Test
+    void aRankedPlayerWinsWhenTheOthersAreOut() {
+        GameStatus status = new GameStatus(settings(3, 2), 3);
+        status.played(0, true, 0);
+        status.played(1, false, 3);
+        assertNull(status.outcome(3));
+        status.played(2, false, 3);
+        assertEquals(GameResult.Outcome.WIN, status.outcome(3));
+        assertEquals(0, status.winner());
+    }
+
+    @Test
+    void endsAtTheTurnLimit() {
+        GameStatus status = new GameStatus(settings(2, 1), 2);
+        assertNull(status.outcome(99));
+        assertEquals(GameResult.Outcome.TURN_LIMIT, status.outcome(100));
+    }
+
+    @Test
+    void restoresRanksAndEliminations() {
+        GameStatus status = new GameStatus(settings(4, 3), 4);
+        status.restore(3, 1, 0);
+        status.restore(1, 0, 3);
+        status.restore(0, 0, 1);
+
+        assertEquals(3, status.winner());
+        assertTrue(status.isEliminated(1));
+        assertEquals(2, status.active());
+        status.played(2, true, 0);
+        assertEquals(2, status.rank(2));
+    }
+}
@@ -0,0 +1,99 @@
+package gridgame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Every message survives the binary and the textual form: random messages
+ * of each conversation are encoded, decoded and parsed back from toText().
+ */
+class MessageCodecTest {
+
+    private static final int MESSAGES = 2_000;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"init", "your-turn", "turn-result", "negotiation", "negotiation-reply", "lease", "checkpoint",
+            "trade-payment", "reputation-query", "reputation-scores"})
+    void roundTripsThroughBinaryAndText(String conversation) {
+        Random rand = new Random(conversation.hashCode());
+        for (int i = 0; i < MESSAGES; i++) {
+            MessageCodec.Message message = randomMessage(conversation, rand);
+            assertEquals(message, MessageCodec.decode(MessageCodec.encode(message)), "binary");
+            assertEquals(message, MessageCodec.fromText(conversation, message.toText()), "text: " + message.toText());
+        }
+    }
+
+    private static MessageCodec.Message randomMessage(String conversation, Random rand) {
+        return switch (conversation) {
+            case "init" -> {
+                List<String> players = new ArrayList<>();
+                for (int p = 1; p <= 2 + rand.nextInt(8); p++) players.add("Player" + p);
+                yield new MessageCodec.Init(rand.nextInt(1000), rand.nextInt(1000), rand.nextInt(1000), rand.nextInt(1000),
+                        randomTokens(rand), players, GameSettings.defaults(),
+                        Grid.generate(1 + rand.nextInt(20), 1 + rand.nextInt(20), TokenColor.values(), rand), rand.nextLong());
+            }
+            case "your-turn" -> {
+                List<String> partners = null;
+                if (rand.nextBoolean()) {
+                    partners = new ArrayList<>();
+                    for (int p = rand.nextInt(4); p > 0; p--) partners.add("Player" + (1 + rand.nextInt(9)));
+                }
+                yield new MessageCodec.TurnRequest(rand.nextInt(100_000), partners);
+            }
+            case "turn-result" -> {
+                MessageCodec.TradeReport trade = null;
+                if (rand.nextBoolean()) {
+                    boolean accepted = rand.nextBoolean();
+                    trade = new MessageCodec.TradeReport("Player" + (1 + rand.nextInt(9)), randomColor(rand),
+                            rand.nextInt(5) == 0 ? null : randomColor(rand), accepted, accepted && rand.nextBoolean());
+                }
+                MessageCodec.TradeOrder order = rand.nextBoolean() ? null : new MessageCodec.TradeOrder(randomColor(rand), randomTokens(rand));
+                yield new MessageCodec.TurnResult(rand.nextInt(100_000), rand.nextInt(100_000), randomTokens(rand),
+                        rand.nextBoolean(), trade, order);
+            }
+            case "negotiation" -> new MessageCodec.TradeProposal(randomColor(rand), rand.nextInt(5) == 0 ? null : randomColor(rand),
+                    rand.nextInt(100_000));
+            case "trade-payment" -> new MessageCodec.TradePayment(rand.nextInt(5) == 0 ? null : randomColor(rand), rand.nextInt(100_000));
+            case "reputation-query" -> new MessageCodec.ReputationQuery(rand.nextInt(10_000));
+            case "reputation-scores" -> new MessageCodec.ReputationScores(rand.nextInt(10_000), rand.nextInt(10_000), randomScores(rand));
+            case "lease" -> new MessageCodec.Lease("S" + rand.nextInt(1000));
+            case "checkpoint" -> {
+                TradeMemory memory = new TradeMemory();
+                for (int p = rand.nextInt(5); p > 0; p--) {
+                    int betrayals = rand.nextInt(3);
+                    memory.restore("Player" + (1 + rand.nextInt(9)), betrayals, rand.nextInt(3), betrayals > 0 && rand.nextBoolean());
+                }
+                memory.restore(Reputation.of(rand.nextInt(1000), rand.nextInt(1000), randomScores(rand)));
+                int[] cells = new int[rand.nextInt(6)];
+                for (int i = 0; i < cells.length; i++) cells[i] = rand.nextInt(400);
+                yield new MessageCodec.AgentState("default", rand.nextInt(4), rand.nextLong(), memory,
+                        new PathPlanner.Route(rand.nextInt(401) - 1, cells, randomTokens(rand)));
+            }
+            default -> new MessageCodec.TradeReply(rand.nextBoolean() ? null : randomColor(rand));
+        };
+    }
+
+    private static Map<String, Double> randomScores(Random rand) {
+        Map<String, Double> scores = new TreeMap<>();
+        for (int p = rand.nextInt(5); p > 0; p--) scores.put("Player" + (1 + rand.nextInt(9)), rand.nextGaussian() * 4);
+        return scores;
+    }
+
+    private static TokenInventory randomTokens(Random rand) {
+        TokenInventory tokens = new TokenInventory();
+        for (int t = rand.nextInt(12); t > 0; t--) tokens.give(randomColor(rand));
+        return tokens;
+    }
+
+    private static TokenColor randomColor(Random rand) {
+        return TokenColor.of(rand.nextInt(TokenColor.COUNT));
+    }
+}
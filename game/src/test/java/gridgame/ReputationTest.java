@@ -0,0 +1,61 @@
+package gridgame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ReputationTest {
+
+    // What mostTrusted() promises, by sorting: lowest score, then strangers in list order, then by name
+    private static String expected(Reputation reputation, List<String> candidates) {
+        List<String> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.<String>comparingDouble(reputation::score)
+                .thenComparing(p -> reputation.score(p) == 0 ? candidates.indexOf(p) : 0)
+                .thenComparing(p -> p));
+        return sorted.get(0);
+    }
+
+    @Test
+    void trustsStrangersHalfway() {
+        Reputation reputation = new Reputation();
+        assertEquals(0.5, reputation.trust("Player1"), 1e-9);
+        reputation.betrayal("Player1", 1);
+        assertEquals(1.0 / 3, reputation.trust("Player1"), 1e-9);
+        reputation.honest("Player2", 1);
+        assertEquals(2.0 / 3, reputation.trust("Player2"), 1e-9);
+    }
+
+    @Test
+    void forgetsHalfADeedEveryHalfLife() {
+        Reputation reputation = new Reputation();
+        reputation.betrayal("Player1", 1);
+        reputation.advance(1 + Reputation.HALF_LIFE);
+        assertEquals(0.5, reputation.score("Player1"), 1e-9);
+    }
+
+    @Test
+    void picksTheSameAsSortingForAReusedList() {
+        Random rand = new Random(5);
+        Reputation reputation = new Reputation();
+        List<String> candidates = new ArrayList<>();
+        for (int round = 1; round <= 300; round++) {
+            String player = "Player" + rand.nextInt(60);
+            if (rand.nextBoolean()) reputation.betrayal(player, round); else reputation.honest(player, round);
+
+            // The same list, changed in place between calls
+            candidates.clear();
+            for (int p = 0; p < 60; p++) {
+                if (rand.nextInt(3) > 0) candidates.add("Player" + p);
+            }
+            Collections.shuffle(candidates, rand);
+            if (candidates.isEmpty()) continue;
+            assertEquals(expected(reputation, candidates), reputation.mostTrusted(candidates), "round " + round);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package gridgame;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SpatialIndexTest {
+
+    @Test
+    void tracksOccupiedCellsAsPlayersMove() {
+        SpatialIndex index = new SpatialIndex(20, 20, 2);
+        index.place(0, 5);
+        index.place(1, 5);
+        assertTrue(index.occupied(5));
+
+        index.place(0, 6);
+        assertTrue(index.occupied(5));
+        index.place(1, 300);  // into another bucket
+        assertFalse(index.occupied(5));
+        assertTrue(index.occupied(6));
+        assertEquals(300, index.cellOf(1));
+    }
+
+    @Test
+    void measuresStepsBetweenPlayers() {
+        SpatialIndex index = new SpatialIndex(10, 10, 2);
+        index.place(0, 0);          // (0,0)
+        index.place(1, 9 * 10 + 3); // (3,9)
+        assertEquals(12, index.distance(0, 1));
+        assertEquals(12, index.distance(1, 0));
+    }
+
+    @Test
+    void findsTheSamePlayersAsAScanNearestFirst() {
+        Random rand = new Random(3);
+        int width = 50, height = 37, players = 300;
+        SpatialIndex index = new SpatialIndex(width, height, players);
+        for (int seat = 0; seat < players; seat++) index.place(seat, rand.nextInt(width * height));
+        // Move some of them around so buckets are rebuilt
+        for (int i = 0; i < 1000; i++) index.place(rand.nextInt(players), rand.nextInt(width * height));
+
+        for (int seat = 0; seat < players; seat += 7) {
+            for (int radius : new int[] { 0, 1, 5, 17, 100 }) {
+                int from = seat;
+                List<Integer> expected = new ArrayList<>();
+                for (int other = 0; other < players; other++) {
+                    if (other != from && index.distance(from, other) <= radius) expected.add(other);
+                }
+                expected.sort(Comparator.<Integer>comparingInt(other -> index.distance(from, other)).thenComparing(other -> other));
+
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), index.within(seat, radius));
+            }
+        }
+    }
+}
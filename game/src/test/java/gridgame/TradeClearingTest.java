@@ -0,0 +1,107 @@
+package gridgame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TradeClearingTest {
+
+    private static TradeClearing.Order order(int seat, TokenColor need, TokenColor... spare) {
+        TokenInventory tokens = new TokenInventory();
+        for (TokenColor c : spare) tokens.give(c);
+        return new TradeClearing.Order(seat, need, tokens);
+    }
+
+    @Test
+    void swapsTwoPlayersThatHoldWhatTheOtherNeeds() {
+        List<TradeClearing.Trade> trades = TradeClearing.match(List.of(
+                order(0, TokenColor.RED, TokenColor.BLUE),
+                order(1, TokenColor.BLUE, TokenColor.RED)));
+
+        assertEquals(2, trades.size());
+        assertTrue(trades.contains(new TradeClearing.Trade(1, 0, TokenColor.RED)));
+        assertTrue(trades.contains(new TradeClearing.Trade(0, 1, TokenColor.BLUE)));
+    }
+
+    @Test
+    void closesACycleOfThree() {
+        // 0 needs red from 1, 1 needs green from 2, 2 needs blue from 0
+        List<TradeClearing.Trade> trades = TradeClearing.match(List.of(
+                order(0, TokenColor.RED, TokenColor.BLUE),
+                order(1, TokenColor.GREEN, TokenColor.RED),
+                order(2, TokenColor.BLUE, TokenColor.GREEN)));
+
+        assertEquals(3, trades.size());
+        assertTrue(trades.contains(new TradeClearing.Trade(1, 0, TokenColor.RED)));
+        assertTrue(trades.contains(new TradeClearing.Trade(2, 1, TokenColor.GREEN)));
+        assertTrue(trades.contains(new TradeClearing.Trade(0, 2, TokenColor.BLUE)));
+    }
+
+    @Test
+    void prefersSwapsOverLongerCycles() {
+        // 0 could join the cycle with 1 and 2, but swaps with 3 first
+        List<TradeClearing.Trade> trades = TradeClearing.match(List.of(
+                order(0, TokenColor.RED, TokenColor.BLUE),
+                order(1, TokenColor.GREEN, TokenColor.RED),
+                order(2, TokenColor.BLUE, TokenColor.GREEN),
+                order(3, TokenColor.BLUE, TokenColor.RED)));
+
+        assertTrue(trades.contains(new TradeClearing.Trade(3, 0, TokenColor.RED)));
+        assertTrue(trades.contains(new TradeClearing.Trade(0, 3, TokenColor.BLUE)));
+        assertEquals(2, trades.size());
+    }
+
+    @Test
+    void leavesCyclesLongerThanTheLimit() {
+        List<TradeClearing.Order> orders = List.of(
+                order(0, TokenColor.RED, TokenColor.BLUE),
+                order(1, TokenColor.GREEN, TokenColor.RED),
+                order(2, TokenColor.BLUE, TokenColor.GREEN));
+
+        assertTrue(TradeClearing.match(orders, 2, (from, to) -> true).isEmpty());
+    }
+
+    @Test
+    void tradesOnlyWithinReach() {
+        List<TradeClearing.Order> orders = List.of(
+                order(0, TokenColor.RED, TokenColor.BLUE),
+                order(1, TokenColor.BLUE, TokenColor.RED));
+
+        assertTrue(TradeClearing.match(orders, (from, to) -> false).isEmpty());
+        // One direction out of reach is enough to break the swap
+        assertTrue(TradeClearing.match(orders, (from, to) -> from == 0).isEmpty());
+    }
+
+    @Test
+    void everyMatchedPlayerGivesOneAndGetsItsNeed() {
+        Random rand = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<TradeClearing.Order> orders = new ArrayList<>();
+            for (int seat = 0; seat < 30; seat++) {
+                TokenInventory tokens = new TokenInventory();
+                for (int t = rand.nextInt(4); t > 0; t--) tokens.give(TokenColor.of(rand.nextInt(6)));
+                TokenColor need = TokenColor.of(rand.nextInt(6));
+                orders.add(new TradeClearing.Order(seat, need, TradeClearing.spare(tokens, need)));
+            }
+
+            Map<Integer, Integer> given = new HashMap<>(), received = new HashMap<>();
+            for (TradeClearing.Trade trade : TradeClearing.match(orders)) {
+                TradeClearing.Order from = orders.get(trade.from()), to = orders.get(trade.to());
+                assertEquals(to.need(), trade.color());
+                assertTrue(from.spare().has(trade.color()));
+                given.merge(trade.from(), 1, Integer::sum);
+                received.merge(trade.to(), 1, Integer::sum);
+            }
+            assertEquals(given.keySet(), received.keySet());
+            for (int count : given.values()) assertEquals(1, count);
+            for (int count : received.values()) assertEquals(1, count);
+        }
+    }
+}
@@ -1,32 +0,0 @@
-public class Case {
-    private int x;
-    private int y;
-    private String color;
-
-    public Case(int x, int y, String color) {
-        this.x = x;
-        this.y = y;
-        this.color = color;
-    }
-
-    public int getX() {
-        return x;
-    }
-
-    public int getY() {
-        return y;
-    }
-
-    public String getColor() {
-        return color;
-    }
-
-    public void setColor(String color) {
-        this.color = color;
-    }
-
-    @Override
-    public String toString() {
-        return "Case(" + x + "," + y + ")[" + color + "]";
-    }
-}
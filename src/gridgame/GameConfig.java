@@ -0,0 +1,119 @@
+package gridgame;
+
+import java.awt.Color;
+
+// Default game values; per-game overrides go through GameSettings
+public class GameConfig {
+    // Number of players in the game (up to 4)
+    public static final int NUM_PLAYERS = 4; // can change to 4
+
+    // Grid size (width and height)
+    public static final int GRID_WIDTH = 7;
+    public static final int GRID_HEIGHT = 5;
+
+    public static final int CELL_SIZE = 100; 
+    // Pixel size of each grid cell in the GUI
+    
+    // Optional replay pacing: minimum milliseconds between turns so humans can follow (0 = full speed)
+    public static final int TURN_DELAY_MS = 2000;
+
+    // Frames per second of the GUI; updates in between are coalesced
+    public static final int GUI_FPS = 60;
+
+    // System property naming the GameJournal file MainAgent appends to (no journal when unset)
+    public static final String JOURNAL_PROPERTY = "gridgame.journal";
+
+    // System property for the GameLog level (off, error, warn, info, debug, trace);
+    // append ".NAME" to set it for one agent only, e.g. gridgame.log.level.Player2=debug
+    public static final String LOG_LEVEL_PROPERTY = "gridgame.log.level";
+
+    // System property naming the file GameMetrics snapshots are written to (none when unset)
+    public static final String METRICS_PROPERTY = "gridgame.metrics";
+
+    // Milliseconds between two GameMetrics snapshots
+    public static final int METRICS_INTERVAL_MS = 1000;
+
+    // System property naming the GameSnapshot file MainAgent checkpoints to (no checkpoints when unset);
+    // sessions other than the default one append ".SESSION" to it
+    public static final String CHECKPOINT_PROPERTY = "gridgame.checkpoint";
+    // System property for the turns between two checkpoints, and its default
+    public static final String CHECKPOINT_INTERVAL_PROPERTY = "gridgame.checkpoint.interval";
+    public static final int CHECKPOINT_INTERVAL = 100;
+
+    // How long (milliseconds) MainAgent waits for a player's turn result before skipping it
+    public static final int TURN_TIMEOUT_MS = 5000;
+
+    // Whether all players move at once each round instead of one after another
+    public static final boolean SIMULTANEOUS_ROUNDS = false;
+
+    // Whether blocked players trade through MainAgent's batched clearing each round (TradeClearing)
+    // instead of proposing to one partner; needs SIMULTANEOUS_ROUNDS
+    public static final boolean TRADE_CLEARING = false;
+
+    // Whether a player may not enter a cell another player stands on (it stays and keeps its token)
+    public static final boolean EXCLUSIVE_CELLS = false;
+
+    // Only players within this many steps of each other trade: blocked players propose to them,
+    // and tradeClearing only matches them (0 = anyone trades with anyone)
+    public static final int TRADE_RADIUS = 0;
+
+    // Whether players also judge each other by a reputation board of every betrayal in the game
+    public static final boolean SHARED_REPUTATION = false;
+
+    // Rounds after which a betrayal or an honest trade counts half in a reputation (see Reputation)
+    public static final int REPUTATION_HALF_LIFE = 10;
+
+    // How many players must reach their goals before the game ends (1 = the first one wins)
+    public static final int FINISHERS = 1;
+
+    // How long MainAgent waits for all players to register with the DF, and how often it looks
+    public static final int PLAYER_LOOKUP_TIMEOUT_MS = 60000;
+    public static final int PLAYER_LOOKUP_INTERVAL_MS = 250;
+    
+    // Number of token colors in play: the first N of TokenColor (Red, Blue, Green, Yellow)
+    public static final int NUM_COLORS = 4;
+    // Number of tokens each player starts with
+    public static final int TOKENS_PER_PLAYER = 7;
+    
+    // Probability that a player will betray in a token trade (0.0 to 1.0)
+    public static final double BETRAYAL_PROBABILITY = 0.9;
+    
+    
+    // Maximum allowed blocked turns before disqualification
+    public static final int MAX_BLOCKED_TURNS = 3;
+    // Max number of turns before the game ends automatically
+    public static final int MAX_GAME_TURNS = 50;
+
+    // Player flags (goal emoji, shown on left-center)
+    public static String getFlag(String playerName) {
+        return switch (playerName) {
+            case "Player1" -> "🍯";
+            case "Player2" -> "🧀";
+            case "Player3" -> "🌸";
+            case "Player4" -> "🍌";
+            default -> "🏁";
+        };
+    }
+
+    // Player emojis (shown center-right)
+    public static String getPlayerEmoji(String playerName) {
+        return switch (playerName) {
+            case "Player1" -> "🐻";
+            case "Player2" -> "🐭";
+            case "Player3" -> "🐝";
+            case "Player4" -> "🐵";
+            default -> "❓";
+        };
+    }
+
+    // Trail colors (semi-transparent colors for player trails)
+    public static Color getTrailColor(String playerName) {
+        return switch (playerName) {
+            case "Player1" -> new Color(0, 0, 0, 180);       // Semi-transparent black
+            case "Player2" -> new Color(255, 255, 255, 180); // Semi-transparent white
+            case "Player3" -> new Color(255, 0, 0, 180);     // Semi-transparent red
+            case "Player4" -> new Color(0, 0, 255, 180);     // Semi-transparent blue
+            default -> Color.GRAY;
+        };
+    }
+}
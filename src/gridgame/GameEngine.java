@@ -0,0 +1,530 @@
+package gridgame;
+
+import java.util.*;
+
+/**
+ * Headless version of the game: the same grid, movement, trade and betrayal
+ * rules that MainAgent and PlayerAgent play over ACL messages, run as direct
+ * method calls. No JADE, no Swing and no turn delay, so a single thread can
+ * play thousands of games per second.
+ *
+ * An engine plays exactly one game; create a new one (with a new seed) for
+ * every game. run() plays it to the end, or start() followed by step() until
+ * it returns false advances it one turn at a time. With simultaneousRounds a
+ * step is a whole round in which every player moves (see RoundRules), and
+ * the turn count and limit count rounds. Players that reached their goals or
+ * were eliminated sit out the remaining turns (see GameStatus).
+ *
+ * Between steps the game can be saved with snapshot() and continued with
+ * restore(), as often as wanted (see GameSnapshot).
+ */
+public class GameEngine {
+
+    private final GameSettings settings;
+    private final long seed;
+    private final GameRandom rand;        // the "placement" stream; players draw from their own (GameRandom)
+    private final int width;
+    private final int height;
+    private final TokenColor[] colors;
+    private final List<NegotiationStrategy> strategies;
+
+    private final Grid grid;
+    private final List<SimPlayer> players = new ArrayList<>();
+    private final Map<String, SimPlayer> playersByName = new HashMap<>();
+    private final SpatialIndex positions;  // for exclusiveCells and tradeRadius
+    private final GameStatus status;      // who is still playing, and whether the game is over
+    private final Reputation board;       // with sharedReputation: every trade of the game, seen by all players
+    private int turnCount = 0;
+    private int currentPlayerIndex = 0;
+    private GameResult.Outcome outcome;   // null while the game is running
+    private String winner;
+    private GameListener listener;        // optional, e.g. a GameGUI
+    private GameJournal journal;          // optional event record
+
+    public GameEngine(long seed) {
+        this(GameSettings.defaults(), seed);
+    }
+
+    public GameEngine(GameSettings settings, long seed) {
+        this(settings, seed, List.of(NegotiationStrategies.DEFAULT));
+    }
+
+    /**
+     * A game whose seat i trades with strategies.get(i % strategies.size()),
+     * e.g. two strategies alternate around the table.
+     */
+    public GameEngine(GameSettings settings, long seed, List<NegotiationStrategy> strategies) {
+        if (strategies.isEmpty()) throw new IllegalArgumentException("No strategies");
+        this.settings = settings;
+        this.strategies = strategies;
+        this.seed = seed;
+        this.rand = GameRandom.stream(seed, "placement");
+        this.width = settings.gridWidth();
+        this.height = settings.gridHeight();
+        this.colors = TokenColor.palette(settings.numColors());
+        this.grid = initGrid();
+        this.positions = new SpatialIndex(width, height, settings.numPlayers());
+        this.status = new GameStatus(settings, settings.numPlayers());
+        this.board = settings.sharedReputation() ? new Reputation() : null;
+    }
+
+    // A game placed as in the snapshot; a fork draws from the streams of its own seed from here on
+    private GameEngine(GameSnapshot snapshot, long seed, boolean fork) {
+        this.settings = snapshot.settings();
+        this.seed = seed;
+        this.rand = fork ? GameRandom.stream(seed, "placement") : new GameRandom(snapshot.randomState());
+        this.width = settings.gridWidth();
+        this.height = settings.gridHeight();
+        this.colors = TokenColor.palette(settings.numColors());
+        this.grid = snapshot.grid();
+        this.positions = new SpatialIndex(width, height, snapshot.players().size());
+        this.status = new GameStatus(settings, snapshot.players().size());
+        this.board = !settings.sharedReputation() ? null
+                : snapshot.board() != null ? new Reputation(snapshot.board()) : new Reputation();
+        this.strategies = new ArrayList<>();
+        this.turnCount = snapshot.turn();
+        this.currentPlayerIndex = snapshot.nextSeat();
+
+        for (GameSnapshot.PlayerState state : snapshot.players()) {
+            NegotiationStrategy strategy = NegotiationStrategies.byName(state.strategy());
+            strategies.add(strategy);
+            SimPlayer p = new SimPlayer(state.name(), players.size(), state.x(), state.y(), state.goalX(), state.goalY(),
+                    new TokenInventory(state.tokens()), new PathPlanner(grid, state.goalX(), state.goalY()), strategy);
+            p.blockedTurns = state.blockedTurns();
+            p.moves = state.moves();
+            p.totalBlocked = state.totalBlocked();
+            p.tradesProposed = state.tradesProposed();
+            p.tradesAccepted = state.tradesAccepted();
+            p.betrayals = state.betrayals();
+            p.memory = new TradeMemory(state.memory());
+            p.memory.share(board);
+            p.planner.resume(state.route());
+            p.rand = fork ? GameRandom.player(seed, p.seat) : new GameRandom(state.randomState());
+            positions.place(p.seat, grid.index(p.x, p.y));
+            status.restore(p.seat, state.rank(), p.blockedTurns);
+            players.add(p);
+            playersByName.put(p.name, p);
+        }
+        for (SimPlayer p : players) {
+            for (SimPlayer other : players) {
+                if (other != p) p.otherPlayers.add(other.name);
+            }
+        }
+    }
+
+    // Continue a saved game exactly as it would have gone on
+    public static GameEngine restore(GameSnapshot snapshot) {
+        return new GameEngine(snapshot, snapshot.seed(), false);
+    }
+
+    // A what-if branch of a saved game: the same position, but its own random draws from here on
+    public static GameEngine restore(GameSnapshot snapshot, long seed) {
+        return new GameEngine(snapshot, seed, true);
+    }
+
+    /**
+     * The game as it stands between two steps. Only possible while it is
+     * running (after start(), before the end).
+     */
+    public GameSnapshot snapshot() {
+        if (players.isEmpty() || outcome != null) throw new IllegalStateException("Game is not running");
+        List<GameSnapshot.PlayerState> states = new ArrayList<>(players.size());
+        for (SimPlayer p : players) {
+            states.add(new GameSnapshot.PlayerState(p.name, p.strategy.name(), p.x, p.y, p.goalX, p.goalY,
+                    new TokenInventory(p.tokens), p.blockedTurns, p.moves, p.totalBlocked,
+                    p.tradesProposed, p.tradesAccepted, p.betrayals, p.rand.state(), new TradeMemory(p.memory), p.planner.route(),
+                    status.rank(p.seat)));
+        }
+        return new GameSnapshot(settings, seed, rand.state(), turnCount, currentPlayerIndex, grid, states,
+                board == null ? null : new Reputation(board));
+    }
+
+    /**
+     * Report placements and moves to the listener (set before start()). The
+     * game does not slow down for it; a GameGUI just shows the latest state.
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
+    // Record every event of this game (set before start())
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
+    public Grid grid() {
+        return grid;
+    }
+
+    /**
+     * Play the game to the end and return its result.
+     */
+    public GameResult run() {
+        start();
+        while (step()) {
+            // keep playing
+        }
+        return result();
+    }
+
+    // Place the players (the board is generated by the constructor); a restored game is already placed
+    public void start() {
+        if (players.isEmpty()) {
+            assignPlayers();
+        } else if (listener != null) {
+            for (SimPlayer p : players) listener.updatePlayerPosition(p.name, p.x, p.y, p.goalX, p.goalY);
+        }
+    }
+
+    /**
+     * Play one turn (or round). Returns false once the game is over (or was already).
+     */
+    public boolean step() {
+        if (outcome != null) return false;
+
+        turnCount++;
+        if (settings.simultaneousRounds()) {
+            if (journal != null) {
+                for (SimPlayer p : players) {
+                    if (status.inPlay(p.seat)) journal.append(new GameJournal.TurnStart(turnCount, p.seat));
+                }
+            }
+            playRound();
+            return !checkEnd(RoundRules.priorityOrder(players.size(), turnCount));
+        }
+
+        if (journal != null) journal.append(new GameJournal.TurnStart(turnCount, currentPlayerIndex));
+        playTurn(players.get(currentPlayerIndex));
+        if (checkEnd(new int[] { currentPlayerIndex })) return false;
+
+        // Players that reached their goals or were eliminated are skipped
+        currentPlayerIndex = status.next(currentPlayerIndex);
+        return true;
+    }
+
+    /**
+     * Rank or eliminate the given players (in order) after their turn, and
+     * settle the game when GameStatus says it is over.
+     */
+    private boolean checkEnd(int[] moved) {
+        for (int i : moved) {
+            SimPlayer player = players.get(i);
+            status.played(i, player.isAtGoal(), player.blockedTurns);
+        }
+        GameResult.Outcome end = status.outcome(turnCount);
+        if (end == null) return false;
+        finish(end);
+        return true;
+    }
+
+    private void finish(GameResult.Outcome outcome) {
+        int seat = status.winner();
+        this.outcome = outcome;
+        this.winner = seat < 0 ? null : players.get(seat).name;
+        if (journal != null) journal.append(new GameJournal.GameEnd(outcome, seat, turnCount));
+    }
+
+    public boolean isOver() {
+        return outcome != null;
+    }
+
+    // Same layout as MainAgent.initGrid(), drawn from the game's "grid" stream
+    private Grid initGrid() {
+        return Grid.generate(width, height, colors, GameRandom.stream(seed, "grid").nextLong());
+    }
+
+    // Same placement rules as MainAgent.assignPlayers(): unique starts, goal != start
+    private void assignPlayers() {
+        boolean[] usedPositions = new boolean[width * height];
+
+        for (int i = 1; i <= settings.numPlayers(); i++) {
+            int startX, startY, goalX, goalY;
+
+            do {
+                startX = rand.nextInt(width);
+                startY = rand.nextInt(height);
+            } while (usedPositions[startY * width + startX]);
+            usedPositions[startY * width + startX] = true;
+
+            do {
+                goalX = rand.nextInt(width);
+                goalY = rand.nextInt(height);
+            } while (goalX == startX && goalY == startY);
+
+            TokenInventory tokens = new TokenInventory();
+            for (int t = 0; t < settings.tokensPerPlayer(); t++) {
+                tokens.give(colors[rand.nextInt(colors.length)]);
+            }
+
+            SimPlayer p = new SimPlayer("Player" + i, i - 1, startX, startY, goalX, goalY, tokens,
+                    new PathPlanner(grid, goalX, goalY), strategies.get((i - 1) % strategies.size()));
+            p.rand = GameRandom.player(seed, p.seat);
+            p.memory.share(board);
+            positions.place(p.seat, grid.index(startX, startY));
+            players.add(p);
+        }
+
+        if (journal != null) {
+            List<String> names = new ArrayList<>(players.size());
+            for (SimPlayer p : players) names.add(p.name);
+            journal.append(new GameJournal.GameStart(seed, names, settings, grid));
+        }
+
+        for (SimPlayer p : players) {
+            playersByName.put(p.name, p);
+            if (journal != null) journal.append(new GameJournal.PlayerInit(p.seat, p.x, p.y, p.goalX, p.goalY, p.tokens));
+            if (listener != null) listener.updatePlayerPosition(p.name, p.x, p.y, p.goalX, p.goalY);
+            for (SimPlayer other : players) {
+                if (other != p) p.otherPlayers.add(other.name);
+            }
+        }
+    }
+
+    /**
+     * One turn for one player: pay for the next cell, or try to trade for the
+     * missing token when blocked. With exclusiveCells a player that could
+     * pay but finds its next cell taken waits, keeping its token (it is not
+     * blocked).
+     */
+    private void playTurn(SimPlayer player) {
+        // Next step of the player's token-aware route (same planner as PlayerAgent)
+        int next = player.planner.nextStep(player.x, player.y, player.tokens);
+        TokenColor requiredColor = grid.colorAt(next);
+
+        if (player.tokens.has(requiredColor)) {
+            if (settings.exclusiveCells() && positions.occupied(next)) return;
+            player.tokens.take(requiredColor);
+            moveTo(player, next, requiredColor);
+            return;
+        }
+        blockAndTrade(player, requiredColor);
+    }
+
+    /**
+     * One simultaneous round: every player picks its next cell from the same
+     * board, RoundRules decides who gets contested cells, then the blocked
+     * players trade in priority order, or with tradeClearing all at once
+     * through TradeClearing.
+     */
+    private void playRound() {
+        int n = players.size();
+        int[] next = new int[n];
+        int[] targets = new int[n];
+        for (int i = 0; i < n; i++) {
+            SimPlayer player = players.get(i);
+            if (!status.inPlay(i)) {
+                targets[i] = -1;
+                continue;
+            }
+            next[i] = player.planner.nextStep(player.x, player.y, player.tokens);
+            targets[i] = player.tokens.has(grid.colorAt(next[i])) ? next[i] : -1;
+        }
+
+        boolean[] granted = settings.exclusiveCells()
+                ? RoundRules.resolveMoves(targets, turnCount, positions::occupied)
+                : RoundRules.resolveMoves(targets, turnCount);
+        List<TradeClearing.Order> orders = settings.tradeClearing() ? new ArrayList<>() : null;
+        for (int i : RoundRules.priorityOrder(n, turnCount)) {
+            SimPlayer player = players.get(i);
+            if (!status.inPlay(i)) continue;
+            if (granted[i]) {
+                TokenColor paid = grid.colorAt(next[i]);
+                player.tokens.take(paid);
+                moveTo(player, next[i], paid);
+            } else if (targets[i] < 0 && orders != null) {
+                block(player);
+                player.tradesProposed++;
+                TokenColor need = grid.colorAt(next[i]);
+                orders.add(new TradeClearing.Order(i, need, TradeClearing.spare(player.tokens, need)));
+            } else if (targets[i] < 0) {
+                blockAndTrade(player, grid.colorAt(next[i]));
+            }
+            // A player that lost its cell to a higher priority one just waits
+        }
+        if (orders != null) clearTrades(orders);
+    }
+
+    // Hand over the tokens of all matched cycles; nobody can betray a clearing trade
+    private void clearTrades(List<TradeClearing.Order> orders) {
+        // Only players within tradeRadius of each other trade (see GameConfig.TRADE_RADIUS)
+        List<TradeClearing.Trade> trades = settings.tradeRadius() == 0 ? TradeClearing.match(orders)
+                : TradeClearing.match(orders, (from, to) -> positions.distance(from, to) <= settings.tradeRadius());
+        TokenColor[] gave = new TokenColor[players.size()];
+        for (TradeClearing.Trade trade : trades) gave[trade.from()] = trade.color();
+        for (TradeClearing.Trade trade : trades) {
+            SimPlayer giver = players.get(trade.from());
+            SimPlayer taker = players.get(trade.to());
+            giver.tokens.take(trade.color());
+            taker.tokens.give(trade.color());
+            taker.tradesAccepted++;
+            if (journal != null) {
+                journal.append(new GameJournal.TradeProposed(taker.seat, giver.seat, trade.color(), gave[taker.seat]));
+                journal.append(new GameJournal.TradeAccepted(taker.seat, giver.seat, trade.color()));
+            }
+        }
+    }
+
+    private void moveTo(SimPlayer player, int cell, TokenColor paid) {
+        positions.place(player.seat, cell);
+        player.x = cell % width;
+        player.y = cell / width;
+        player.blockedTurns = 0;
+        player.moves++;
+        if (journal != null) journal.append(new GameJournal.Move(player.seat, player.x, player.y, paid));
+        if (listener != null) listener.updatePlayerPosition(player.name, player.x, player.y, player.goalX, player.goalY);
+    }
+
+    private void block(SimPlayer player) {
+        player.blockedTurns++;
+        player.totalBlocked++;
+        if (journal != null) journal.append(new GameJournal.Block(player.seat, player.blockedTurns));
+    }
+
+    private void blockAndTrade(SimPlayer player, TokenColor requiredColor) {
+        block(player);
+
+        List<String> candidates = partners(player);
+        if (candidates.isEmpty()) return; // nobody within tradeRadius
+        int round = Reputation.roundOf(settings, turnCount);
+        player.memory.advance(round);
+        SimPlayer other = playersByName.get(player.strategy.choosePartner(candidates, player.memory));
+        other.memory.advance(round);
+        TokenColor offer = player.strategy.chooseOffer(player.tokens, requiredColor);
+        player.tradesProposed++;
+        if (journal != null) journal.append(new GameJournal.TradeProposed(player.seat, other.seat, requiredColor, offer));
+
+        if (!other.strategy.accepts(player.name, requiredColor, other.tokens, other.memory)) {
+            if (journal != null) journal.append(new GameJournal.TradeRejected(player.seat, other.seat));
+            return;
+        }
+
+        other.tokens.take(requiredColor);
+        player.tokens.give(requiredColor);
+        player.tradesAccepted++;
+        if (journal != null) journal.append(new GameJournal.TradeAccepted(player.seat, other.seat, requiredColor));
+
+        boolean honest = player.strategy.pays(other.name, player.memory, settings.betrayalProbability(), player.rand);
+        if (honest && offer != null) {
+            player.tokens.take(offer);
+            other.tokens.give(offer);
+            other.memory.paidBy(player.name, round);
+            if (board != null) board.honest(player.name, round);
+        } else {
+            // The partner never gets paid and remembers it
+            player.betrayals++;
+            other.memory.betrayedBy(player.name, round);
+            if (board != null) board.betrayal(player.name, round);
+            if (journal != null) journal.append(new GameJournal.Betrayal(player.seat, other.seat));
+        }
+    }
+
+    // Who the player may propose to: everyone, or those within tradeRadius (GameConfig.TRADE_RADIUS), nearest first
+    private List<String> partners(SimPlayer player) {
+        if (settings.tradeRadius() == 0) return player.otherPlayers;
+        int[] near = positions.within(player.seat, settings.tradeRadius());
+        List<String> names = new ArrayList<>(near.length);
+        for (int seat : near) names.add(players.get(seat).name);
+        return names;
+    }
+
+    // The result of a finished game
+    public GameResult result() {
+        if (outcome == null) throw new IllegalStateException("Game is not over yet");
+        List<GameResult.PlayerStats> stats = new ArrayList<>(players.size());
+        for (SimPlayer p : players) {
+            stats.add(new GameResult.PlayerStats(p.name, p.isAtGoal(), p.moves, p.totalBlocked,
+                    p.tradesProposed, p.tradesAccepted, p.betrayals, p.tokens.size(), status.rank(p.seat)));
+        }
+        return new GameResult(seed, outcome, winner, turnCount, stats);
+    }
+
+    // Everything MainAgent.PlayerData and a PlayerAgent know about one player
+    private static class SimPlayer {
+        private final String name;
+        private final int seat;
+        private final int goalX, goalY;
+        private int x, y;
+        private final TokenInventory tokens;
+        private final PathPlanner planner;
+        private final NegotiationStrategy strategy;
+        private TradeMemory memory = new TradeMemory();
+        private GameRandom rand;              // the seat's own stream, as the player agent's
+        private final List<String> otherPlayers = new ArrayList<>();
+        private int blockedTurns = 0;
+
+        private int moves, totalBlocked, tradesProposed, tradesAccepted, betrayals;
+
+        SimPlayer(String name, int seat, int startX, int startY, int goalX, int goalY, TokenInventory tokens, PathPlanner planner,
+                  NegotiationStrategy strategy) {
+            this.name = name;
+            this.seat = seat;
+            this.x = startX;
+            this.y = startY;
+            this.goalX = goalX;
+            this.goalY = goalY;
+            this.tokens = tokens;
+            this.planner = planner;
+            this.strategy = strategy;
+        }
+
+        boolean isAtGoal() {
+            return x == goalX && y == goalY;
+        }
+    }
+
+    /**
+     * Plays a batch of headless games and prints a summary.
+     * Usage: GameEngine [games] [firstSeed] [gui] [journal=FILE]
+     * With "gui" the first game is shown in a GameGUI while it plays at full speed;
+     * journal=FILE appends every game to a GameJournal (see JournalReplay).
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long firstSeed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        boolean gui = false;
+        GameJournal journal = null;
+        for (int a = 2; a < args.length; a++) {
+            if (args[a].equals("gui")) {
+                gui = true;
+            } else if (args[a].startsWith("journal=")) {
+                try {
+                    journal = GameJournal.open(java.nio.file.Path.of(args[a].substring("journal=".length())));
+                } catch (java.io.IOException e) {
+                    System.out.println("Cannot open journal: " + e.getMessage());
+                    return;
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[a]);
+            }
+        }
+
+        int wins = 0, draws = 0, limits = 0;
+        long totalTurns = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            GameEngine engine = new GameEngine(firstSeed + i);
+            if (gui && i == 0) engine.setListener(new GameGUI(engine.grid()));
+            engine.setJournal(journal);
+            GameResult result = engine.run();
+            switch (result.outcome()) {
+                case WIN -> wins++;
+                case DRAW -> draws++;
+                case TURN_LIMIT -> limits++;
+            }
+            totalTurns += result.turns();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (java.io.IOException e) {
+                System.out.println("Cannot write journal: " + e.getMessage());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%d games in %.2fs (%.0f games/s), seeds %d..%d",
+                games, seconds, games / seconds, firstSeed, firstSeed + games - 1));
+        System.out.println(String.format("wins=%d draws=%d turn-limit=%d avg turns=%.1f",
+                wins, draws, limits, (double) totalTurns / games));
+    }
+}
@@ -0,0 +1,236 @@
+package gridgame;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The game window: one custom-painted board instead of a component per cell.
+ *
+ * Cell colors, goals and trails only ever get added to, so they are drawn
+ * once into a BufferedImage; paintComponent() copies that image and draws
+ * the player sprites on top. An update repaints just the cells that changed.
+ * Cells shrink on large boards (down to a few pixels, without text) so the
+ * window stays on screen.
+ *
+ * updatePlayerPosition() may be called from any thread at any rate: it only
+ * records the latest state per player, and a Swing timer applies what came
+ * in once per frame (GameConfig.GUI_FPS), so the game never waits on the GUI.
+ */
+public class GameGUI extends JFrame implements GameListener {
+
+    // Largest board side in pixels before cells get smaller than CELL_SIZE
+    private static final int MAX_BOARD_PIXELS = 1000;
+    // Below this cell size, emoji and labels are replaced by plain shapes
+    private static final int DETAIL_CELL_SIZE = 40;
+
+    // Trail cells kept per player between two frames; older ones are dropped
+    private static final int MAX_TRAIL_BACKLOG = 256;
+
+    private static final Color GRID_LINE = new Color(200, 200, 200, 220);
+
+    private final Grid grid;
+    private final int cellSize;
+    private final BoardPanel board;
+    private final Timer frames;   // draws the pending updates GUI_FPS times a second, until dispose()
+
+    private final Map<String, Point> playerGoals = new LinkedHashMap<>();
+    private final Map<String, Point> playerPositions = new LinkedHashMap<>();
+
+    // Updates since the last frame, one entry per player (guarded by this)
+    private Map<String, PendingUpdate> pending = new LinkedHashMap<>();
+
+    public GameGUI(Grid grid) {
+        this.grid = grid;
+        this.cellSize = Math.max(2, Math.min(GameConfig.CELL_SIZE, MAX_BOARD_PIXELS / Math.max(grid.width(), grid.height())));
+
+        setTitle("Colored Trails Game");
+        // setLocationRelativeTo(null); // Center on screen
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+
+        board = new BoardPanel();
+        add(board);
+        pack();
+
+        setVisible(true);
+        frames = new Timer(1000 / GameConfig.GUI_FPS, e -> applyPending());
+        frames.start();
+    }
+
+    // A running Timer would keep the closed window and its board image reachable
+    @Override
+    public void dispose() {
+        frames.stop();
+        super.dispose();
+    }
+
+    @Override
+    public void updatePlayerPosition(String playerName, int x, int y, int goalX, int goalY) {
+        synchronized (this) {
+            PendingUpdate update = pending.computeIfAbsent(playerName, k -> new PendingUpdate());
+            update.goal = new Point(goalX, goalY);
+            if (update.trail.size() == MAX_TRAIL_BACKLOG) update.trail.removeFirst();
+            update.trail.addLast(new Point(x, y));
+        }
+    }
+
+    // Runs on the EDT once per frame
+    private void applyPending() {
+        Map<String, PendingUpdate> updates;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            updates = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        for (Map.Entry<String, PendingUpdate> entry : updates.entrySet()) {
+            String playerName = entry.getKey();
+            PendingUpdate update = entry.getValue();
+
+            if (!playerGoals.containsKey(playerName)) {
+                playerGoals.put(playerName, update.goal);
+                board.drawGoal(playerName, update.goal);
+                board.repaintCell(update.goal);
+            }
+
+            Point previous = playerPositions.get(playerName);
+            for (Point pos : update.trail) {
+                if (pos.equals(previous)) continue;
+                board.drawTrailDot(playerName, pos);
+                board.repaintCell(pos);
+                previous = pos;
+            }
+            Point old = playerPositions.put(playerName, update.trail.getLast());
+            if (old != null) board.repaintCell(old);
+        }
+    }
+
+    // Latest goal and the cells a player went through since the last frame
+    private static class PendingUpdate {
+        private Point goal;
+        private final ArrayDeque<Point> trail = new ArrayDeque<>();
+    }
+
+    private class BoardPanel extends JComponent {
+
+        // Fonts scaled from their sizes at CELL_SIZE, created once
+        private final Font flagFont = scaledFont("Segoe UI Emoji", Font.PLAIN, 24);
+        private final Font goalFont = scaledFont("Arial", Font.BOLD, 10);
+        private final Font dotFont = scaledFont("Arial", Font.BOLD, 18);
+        private final Font playerFont = scaledFont("Segoe UI Emoji", Font.PLAIN, 28);
+        private final Font nameFont = scaledFont("Arial", Font.PLAIN, 10);
+
+        // Cell colors, grid lines, goals and trails
+        private final BufferedImage layer;
+
+        BoardPanel() {
+            setPreferredSize(new Dimension(cellSize * grid.width(), cellSize * grid.height()));
+            setOpaque(true);
+
+            layer = new BufferedImage(cellSize * grid.width(), cellSize * grid.height(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = layer.createGraphics();
+            for (int y = 0; y < grid.height(); y++) {
+                for (int x = 0; x < grid.width(); x++) {
+                    g.setColor(grid.colorAt(x, y).awtColor());
+                    g.fillRect(x * cellSize, y * cellSize, cellSize, cellSize);
+                    if (cellSize >= 4) {
+                        g.setColor(GRID_LINE);
+                        g.drawRect(x * cellSize, y * cellSize, cellSize - 1, cellSize - 1);
+                    }
+                }
+            }
+            g.dispose();
+        }
+
+        private Font scaledFont(String name, int style, int size) {
+            return new Font(name, style, Math.max(1, size * cellSize / GameConfig.CELL_SIZE));
+        }
+
+        private int scaled(int v) {
+            return v * cellSize / GameConfig.CELL_SIZE;
+        }
+
+        void repaintCell(Point p) {
+            repaint(p.x * cellSize, p.y * cellSize, cellSize, cellSize);
+        }
+
+        // Goal cell: thick border, the player's flag and "Goal N"
+        void drawGoal(String player, Point goal) {
+            Graphics2D g = layerGraphics();
+            int cx = goal.x * cellSize, cy = goal.y * cellSize;
+
+            g.setColor(Color.BLACK);
+            int border = Math.max(1, scaled(3));
+            g.setStroke(new BasicStroke(border));
+            g.drawRect(cx + border / 2, cy + border / 2, cellSize - border, cellSize - border);
+
+            if (cellSize >= DETAIL_CELL_SIZE) {
+                g.setFont(flagFont);
+                g.drawString(GameConfig.getFlag(player), cx + scaled(25 - 6), cy + scaled(50 + 8));
+
+                String label = "Goal " + player.replaceAll("\\D", ""); // Keep only the player number
+                g.setFont(goalFont);
+                FontMetrics fm = g.getFontMetrics();
+                g.drawString(label, cx + (cellSize - fm.stringWidth(label)) / 2, cy + cellSize - scaled(8));
+            }
+            g.dispose();
+        }
+
+        void drawTrailDot(String player, Point p) {
+            Graphics2D g = layerGraphics();
+            g.setColor(GameConfig.getTrailColor(player));
+            int cx = p.x * cellSize, cy = p.y * cellSize;
+            if (cellSize >= DETAIL_CELL_SIZE) {
+                g.setFont(dotFont);
+                FontMetrics fm = g.getFontMetrics();
+                g.drawString("•", cx + (cellSize - fm.stringWidth("•")) / 2, cy + (cellSize + fm.getAscent() - fm.getDescent()) / 2);
+            } else {
+                int d = Math.max(1, cellSize / 3);
+                g.fillOval(cx + (cellSize - d) / 2, cy + (cellSize - d) / 2, d, d);
+            }
+            g.dispose();
+        }
+
+        private Graphics2D layerGraphics() {
+            Graphics2D g = layer.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            return g;
+        }
+
+        @Override
+        protected void paintComponent(Graphics graphics) {
+            Graphics2D g = (Graphics2D) graphics;
+            g.drawImage(layer, 0, 0, null);
+
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            Rectangle clip = g.getClipBounds();
+            Rectangle cell = new Rectangle(cellSize, cellSize);
+
+            // Players with name label, only where the clip needs them
+            for (Map.Entry<String, Point> entry : playerPositions.entrySet()) {
+                Point pos = entry.getValue();
+                cell.setLocation(pos.x * cellSize, pos.y * cellSize);
+                if (clip != null && !clip.intersects(cell)) continue;
+
+                String player = entry.getKey();
+                if (cellSize >= DETAIL_CELL_SIZE) {
+                    g.setFont(playerFont);
+                    g.drawString(GameConfig.getPlayerEmoji(player), cell.x + scaled(75 - 16), cell.y + scaled(50 + 10));
+
+                    g.setFont(nameFont);
+                    g.setColor(Color.DARK_GRAY);
+                    FontMetrics fm = g.getFontMetrics();
+                    g.drawString(player, cell.x + cellSize - scaled(5) - fm.stringWidth(player), cell.y + scaled(50 + 30));
+                } else {
+                    g.setColor(GameConfig.getTrailColor(player));
+                    g.fillOval(cell.x, cell.y, cellSize, cellSize);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package gridgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only binary record of games: every event of a game (start, player
+ * placement, turns, moves, blocks, trades, betrayals, end) as one frame.
+ * Several games can follow each other in one journal; each starts with a
+ * GameStart.
+ *
+ * A frame is a varint length followed by a tag byte and the fields, encoded
+ * like MessageCodec (varints, one byte per color). Players are referred to
+ * by seat, their index in GameStart.players. Frames are collected in a 64 KB
+ * buffer and written to a FileChannel when it fills up, on flush() and on
+ * close(), so appending costs a few nanoseconds per event.
+ *
+ * read() memory-maps a journal and hands every event to a consumer; a
+ * truncated last frame (e.g. after a crash) ends the replay quietly.
+ * JournalReplay builds statistics and GUI replays on top of it.
+ */
+public final class GameJournal implements Closeable {
+
+    private static final byte GAME_START = 1;
+    private static final byte PLAYER_INIT = 2;
+    private static final byte TURN_START = 3;
+    private static final byte MOVE = 4;
+    private static final byte BLOCK = 5;
+    private static final byte TRADE_PROPOSED = 6;
+    private static final byte TRADE_ACCEPTED = 7;
+    private static final byte TRADE_REJECTED = 8;
+    private static final byte BETRAYAL = 9;
+    private static final byte GAME_END = 10;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Journals larger than this are mapped in several windows
+    private static final long MAP_WINDOW = 1L << 30;
+
+    public sealed interface Event permits GameStart, PlayerInit, TurnStart, Move, Block,
+            TradeProposed, TradeAccepted, TradeRejected, Betrayal, GameEnd {
+    }
+
+    // First event of every game; seed is 0 when the game was not seeded
+    public record GameStart(long seed, List<String> players, GameSettings settings, Grid grid) implements Event { }
+
+    public record PlayerInit(int seat, int startX, int startY, int goalX, int goalY, TokenInventory tokens) implements Event { }
+
+    // A player is asked to play turn (or round) number turn
+    public record TurnStart(int turn, int seat) implements Event { }
+
+    public record Move(int seat, int x, int y, TokenColor paid) implements Event { }
+
+    // The player could not move; blockedTurns is its count of blocked turns in a row
+    public record Block(int seat, int blockedTurns) implements Event { }
+
+    public record TradeProposed(int seat, int partner, TokenColor need, TokenColor offer) implements Event { }
+
+    public record TradeAccepted(int seat, int partner, TokenColor token) implements Event { }
+
+    public record TradeRejected(int seat, int partner) implements Event { }
+
+    // seat took the token from victim and did not pay
+    public record Betrayal(int seat, int victim) implements Event { }
+
+    // winner is -1 unless the outcome is WIN
+    public record GameEnd(GameResult.Outcome outcome, int winner, int turns) implements Event { }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final MessageCodec.Out out = new MessageCodec.Out(64);
+
+    private GameJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    // Open a journal for appending, creating it if needed
+    public static GameJournal open(Path file) throws IOException {
+        return new GameJournal(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * Append one event. Write errors surface as UncheckedIOException so game
+     * loops do not have to handle IOException for every event.
+     */
+    public synchronized void append(Event event) {
+        out.reset();
+        encode(event, out);
+        int length = out.size();
+
+        if (buffer.remaining() < length + 5) {
+            flushBuffer();
+        }
+        if (length + 5 > BUFFER_SIZE) {
+            // Only a GameStart with a huge grid gets here: write it straight through
+            ByteBuffer prefix = ByteBuffer.allocate(5);
+            putVarint(prefix, length);
+            writeFully(prefix.flip());
+            writeFully(ByteBuffer.wrap(out.buffer(), 0, length));
+            return;
+        }
+        putVarint(buffer, length);
+        buffer.put(out.buffer(), 0, length);
+    }
+
+    /**
+     * Append a whole game's events at once and flush them, so games that
+     * run concurrently and share one journal do not interleave.
+     */
+    public synchronized void appendAll(List<Event> events) {
+        for (Event event : events) append(event);
+        flushBuffer();
+    }
+
+    public synchronized void flush() {
+        flushBuffer();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flushBuffer() {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer data) {
+        try {
+            while (data.hasRemaining()) channel.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void putVarint(ByteBuffer target, int v) {
+        while ((v & ~0x7F) != 0) {
+            target.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        target.put((byte) v);
+    }
+
+    private static void encode(Event event, MessageCodec.Out out) {
+        if (event instanceof GameStart e) {
+            out.writeByte(GAME_START);
+            out.writeLong(e.seed());
+            out.writeVarint(e.players().size());
+            for (String p : e.players()) out.writeString(p);
+            MessageCodec.writeSettings(out, e.settings());
+            out.writeGrid(e.grid());
+        } else if (event instanceof PlayerInit e) {
+            out.writeByte(PLAYER_INIT);
+            out.writeVarint(e.seat());
+            out.writeVarint(e.startX());
+            out.writeVarint(e.startY());
+            out.writeVarint(e.goalX());
+            out.writeVarint(e.goalY());
+            out.writeInventory(e.tokens());
+        } else if (event instanceof TurnStart e) {
+            out.writeByte(TURN_START);
+            out.writeVarint(e.turn());
+            out.writeVarint(e.seat());
+        } else if (event instanceof Move e) {
+            out.writeByte(MOVE);
+            out.writeVarint(e.seat());
+            out.writeVarint(e.x());
+            out.writeVarint(e.y());
+            out.writeColor(e.paid());
+        } else if (event instanceof Block e) {
+            out.writeByte(BLOCK);
+            out.writeVarint(e.seat());
+            out.writeVarint(e.blockedTurns());
+        } else if (event instanceof TradeProposed e) {
+            out.writeByte(TRADE_PROPOSED);
+            out.writeVarint(e.seat());
+            out.writeVarint(e.partner());
+            out.writeColor(e.need());
+            out.writeColor(e.offer());
+        } else if (event instanceof TradeAccepted e) {
+            out.writeByte(TRADE_ACCEPTED);
+            out.writeVarint(e.seat());
+            out.writeVarint(e.partner());
+            out.writeColor(e.token());
+        } else if (event instanceof TradeRejected e) {
+            out.writeByte(TRADE_REJECTED);
+            out.writeVarint(e.seat());
+            out.writeVarint(e.partner());
+        } else if (event instanceof Betrayal e) {
+            out.writeByte(BETRAYAL);
+            out.writeVarint(e.seat());
+            out.writeVarint(e.victim());
+        } else if (event instanceof GameEnd e) {
+            out.writeByte(GAME_END);
+            out.writeVarint(e.outcome().ordinal());
+            out.writeVarint(e.winner() + 1);
+            out.writeVarint(e.turns());
+        }
+    }
+
+    private static Event decode(MessageCodec.In in) {
+        int tag = in.readByte();
+        return switch (tag) {
+            case GAME_START -> {
+                long seed = in.readLong();
+                int n = in.readVarint();
+                List<String> players = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) players.add(in.readString());
+                yield new GameStart(seed, players, MessageCodec.readSettings(in), in.readGrid());
+            }
+            case PLAYER_INIT -> new PlayerInit(in.readVarint(), in.readVarint(), in.readVarint(), in.readVarint(), in.readVarint(),
+                    in.readInventory());
+            case TURN_START -> new TurnStart(in.readVarint(), in.readVarint());
+            case MOVE -> new Move(in.readVarint(), in.readVarint(), in.readVarint(), in.readColor());
+            case BLOCK -> new Block(in.readVarint(), in.readVarint());
+            case TRADE_PROPOSED -> new TradeProposed(in.readVarint(), in.readVarint(), in.readColor(), in.readColor());
+            case TRADE_ACCEPTED -> new TradeAccepted(in.readVarint(), in.readVarint(), in.readColor());
+            case TRADE_REJECTED -> new TradeRejected(in.readVarint(), in.readVarint());
+            case BETRAYAL -> new Betrayal(in.readVarint(), in.readVarint());
+            case GAME_END -> new GameEnd(GameResult.Outcome.values()[in.readVarint()], in.readVarint() - 1, in.readVarint());
+            default -> throw new IllegalArgumentException("Unknown journal event tag " + tag);
+        };
+    }
+
+    /**
+     * Replay a journal: memory-map it and pass each event, in order, to sink.
+     */
+    public static void read(Path file, Consumer<Event> sink) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long base = 0;
+            byte[] frame = new byte[256];
+
+            while (base < size) {
+                MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, base, Math.min(MAP_WINDOW, size - base));
+                boolean lastWindow = base + map.limit() == size;
+
+                while (map.hasRemaining()) {
+                    int start = map.position();
+                    int length = readVarint(map);
+                    if (length < 0 || length > map.remaining()) {
+                        if (lastWindow) return; // truncated tail
+                        map.position(start);    // frame continues in the next window
+                        break;
+                    }
+                    if (length > frame.length) frame = new byte[Math.max(length, frame.length * 2)];
+                    map.get(frame, 0, length);
+                    sink.accept(decode(new MessageCodec.In(frame, length)));
+                }
+
+                if (map.position() == 0) throw new IOException("Journal frame larger than " + MAP_WINDOW + " bytes");
+                base += map.position();
+            }
+        }
+    }
+
+    // -1 when the buffer ends inside the varint
+    private static int readVarint(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!in.hasRemaining()) return -1;
+            int b = in.get() & 0xFF;
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IllegalArgumentException("Malformed journal frame length");
+    }
+}
@@ -0,0 +1,11 @@
+package gridgame;
+
+/**
+ * Receives board changes from a running game (MainAgent or GameEngine).
+ * Called on the game's thread, so implementations must return quickly.
+ */
+public interface GameListener {
+
+    // A player's position (and goal) after placement or a turn
+    void updatePlayerPosition(String playerName, int x, int y, int goalX, int goalY);
+}
@@ -0,0 +1,233 @@
+package gridgame;
+
+import java.io.PrintStream;
+import java.time.LocalTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Small logging facade for the agents: named loggers with levels,
+ * "{}"-parameterized messages, and an asynchronous appender so game threads
+ * never wait on the console.
+ *
+ * A disabled call costs one int comparison: the message is only formatted
+ * when its level is enabled (use the Supplier overloads for expensive
+ * arguments). Enabled lines are formatted on the calling thread, since
+ * arguments such as a TokenInventory may change right after, and handed to
+ * a fixed-size ring buffer drained by one daemon thread. When the buffer is
+ * full, lines are dropped and counted instead of blocking the game.
+ *
+ * Levels come from system properties: gridgame.log.level for all loggers
+ * (default INFO) and gridgame.log.level.NAME for one logger, e.g.
+ * -Dgridgame.log.level=warn -Dgridgame.log.level.Player2=debug.
+ */
+public final class GameLog {
+
+    public enum Level { OFF, ERROR, WARN, INFO, DEBUG, TRACE }
+
+    private static final Map<String, GameLog> LOGGERS = new ConcurrentHashMap<>();
+    private static final Appender APPENDER = new Appender(1 << 14, System.out);
+
+    private final String name;
+    private volatile int threshold;
+
+    private GameLog(String name, Level level) {
+        this.name = name;
+        this.threshold = level.ordinal();
+    }
+
+    // The logger for name, usually an agent's local name or a class name
+    public static GameLog get(String name) {
+        return LOGGERS.computeIfAbsent(name, n -> new GameLog(n, configuredLevel(n)));
+    }
+
+    private static Level configuredLevel(String name) {
+        String value = System.getProperty(GameConfig.LOG_LEVEL_PROPERTY + "." + name, System.getProperty(GameConfig.LOG_LEVEL_PROPERTY, "info"));
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    public void setLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() <= threshold && level != Level.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return Level.DEBUG.ordinal() <= threshold;
+    }
+
+    public void error(String pattern, Object... args) {
+        if (Level.ERROR.ordinal() <= threshold) append(Level.ERROR, pattern, args);
+    }
+
+    public void warn(String pattern) {
+        if (Level.WARN.ordinal() <= threshold) append(Level.WARN, pattern);
+    }
+
+    public void warn(String pattern, Object a) {
+        if (Level.WARN.ordinal() <= threshold) append(Level.WARN, pattern, a);
+    }
+
+    public void warn(String pattern, Object a, Object b) {
+        if (Level.WARN.ordinal() <= threshold) append(Level.WARN, pattern, a, b);
+    }
+
+    public void warn(String pattern, Object... args) {
+        if (Level.WARN.ordinal() <= threshold) append(Level.WARN, pattern, args);
+    }
+
+    public void info(String pattern) {
+        if (Level.INFO.ordinal() <= threshold) append(Level.INFO, pattern);
+    }
+
+    public void info(String pattern, Object a) {
+        if (Level.INFO.ordinal() <= threshold) append(Level.INFO, pattern, a);
+    }
+
+    public void info(String pattern, Object a, Object b) {
+        if (Level.INFO.ordinal() <= threshold) append(Level.INFO, pattern, a, b);
+    }
+
+    public void info(String pattern, Object... args) {
+        if (Level.INFO.ordinal() <= threshold) append(Level.INFO, pattern, args);
+    }
+
+    public void debug(String pattern) {
+        if (Level.DEBUG.ordinal() <= threshold) append(Level.DEBUG, pattern);
+    }
+
+    public void debug(String pattern, Object a) {
+        if (Level.DEBUG.ordinal() <= threshold) append(Level.DEBUG, pattern, a);
+    }
+
+    public void debug(String pattern, Object a, Object b) {
+        if (Level.DEBUG.ordinal() <= threshold) append(Level.DEBUG, pattern, a, b);
+    }
+
+    public void debug(String pattern, Object... args) {
+        if (Level.DEBUG.ordinal() <= threshold) append(Level.DEBUG, pattern, args);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (Level.DEBUG.ordinal() <= threshold) append(Level.DEBUG, "{}", message.get());
+    }
+
+    private void append(Level level, String pattern, Object... args) {
+        StringBuilder sb = new StringBuilder(64 + pattern.length());
+        sb.append(LocalTime.now()).append(' ').append(level).append(' ').append(name).append(": ");
+        format(sb, pattern, args);
+        APPENDER.offer(sb.toString());
+    }
+
+    // Replace each "{}" with the next argument
+    static void format(StringBuilder sb, String pattern, Object[] args) {
+        int from = 0;
+        for (Object arg : args) {
+            int at = pattern.indexOf("{}", from);
+            if (at < 0) break;
+            sb.append(pattern, from, at).append(arg);
+            from = at + 2;
+        }
+        sb.append(pattern, from, pattern.length());
+    }
+
+    /**
+     * Wait (up to timeoutMs) until every line logged so far is written.
+     * Also runs at JVM shutdown, so lines logged before System.exit survive.
+     */
+    public static void flush(long timeoutMs) {
+        APPENDER.drain(timeoutMs);
+    }
+
+    // Lines dropped because the ring buffer was full
+    public static long dropped() {
+        return APPENDER.dropped.sum();
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer ring of lines. Producers claim
+     * a slot by advancing tail; the writer thread empties slots in order and
+     * advances head. A slot is reused only after head has passed it.
+     */
+    private static final class Appender implements Runnable {
+        private final AtomicReferenceArray<String> slots;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+        private volatile boolean waiting;
+        private final LongAdder dropped = new LongAdder();
+        private final PrintStream out;
+        private final Thread writer;
+
+        Appender(int capacity, PrintStream out) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.out = out;
+            this.writer = new Thread(this, "game-log");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> drain(1000), "game-log-flush"));
+        }
+
+        void offer(String line) {
+            long t;
+            do {
+                t = tail.get();
+                if (t - head >= slots.length()) {
+                    dropped.increment();
+                    return;
+                }
+            } while (!tail.compareAndSet(t, t + 1));
+
+            slots.lazySet((int) (t & mask), line);
+            if (waiting) LockSupport.unpark(writer);
+        }
+
+        @Override
+        public void run() {
+            long h = head;
+            while (true) {
+                int index = (int) (h & mask);
+                String line = slots.get(index);
+                if (line == null) {
+                    out.flush();
+                    if (h == tail.get()) {
+                        // Nothing queued: sleep until a producer wakes us (or a timeout, to be safe)
+                        waiting = true;
+                        if (h == tail.get()) LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                        waiting = false;
+                    } else {
+                        Thread.onSpinWait(); // slot claimed but not yet written
+                    }
+                    continue;
+                }
+                out.println(line);
+                slots.lazySet(index, null);
+                head = ++h;
+            }
+        }
+
+        void drain(long timeoutMs) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            long target = tail.get();
+            while (head < target && System.nanoTime() < deadline) {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package gridgame;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for running games, shared by the agents of one JVM: turns and
+ * their round-trip latency, trades, betrayals, timeouts, the MainAgents'
+ * message queue depth, and per player the blocked streak and message queue
+ * depth.
+ *
+ * Counters are LongAdders (striped, so agents on different threads do not
+ * contend on one cache line); recording is cheap enough to stay on all the
+ * time. The totals are exported as the JMX bean gridgame:type=GameMetrics
+ * and one gridgame:type=PlayerMetrics,name=PLAYER bean per player, and, when
+ * the gridgame.metrics property names a file, written there as a
+ * properties snapshot every GameConfig.METRICS_INTERVAL_MS.
+ */
+public final class GameMetrics implements GameMetricsMBean {
+
+    private static final GameLog log = GameLog.get("GameMetrics");
+    private static volatile GameMetrics instance;
+
+    // Latency buckets: bucket b counts round trips of [2^b, 2^(b+1)) microseconds
+    private static final int BUCKETS = 40;
+
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder tradesProposed = new LongAdder();
+    private final LongAdder tradesAccepted = new LongAdder();
+    private final LongAdder tradesRejected = new LongAdder();
+    private final LongAdder betrayals = new LongAdder();
+
+    private final LongAdder[] latencyBuckets = new LongAdder[BUCKETS];
+    private final LongAdder latencyCount = new LongAdder();
+    private final LongAdder latencySumMicros = new LongAdder();
+    private final LongAccumulator latencyMaxMicros = new LongAccumulator(Math::max, 0);
+
+    private final LongAccumulator maxCoordinatorQueueDepth = new LongAccumulator(Math::max, 0);
+    private volatile int coordinatorQueueDepth;
+
+    private final Map<String, PlayerMetrics> players = new ConcurrentHashMap<>();
+
+    // Last sample for getTurnsPerSecond (guarded by this)
+    private long sampleNanos = System.nanoTime();
+    private long sampleTurns;
+    private double turnsPerSecond;
+
+    private ScheduledExecutorService snapshots;
+
+    private GameMetrics() {
+        for (int i = 0; i < BUCKETS; i++) latencyBuckets[i] = new LongAdder();
+    }
+
+    /**
+     * The metrics of this JVM, registered with the platform MBean server
+     * on first use.
+     */
+    public static GameMetrics get() {
+        GameMetrics m = instance;
+        if (m == null) {
+            synchronized (GameMetrics.class) {
+                m = instance;
+                if (m == null) {
+                    m = new GameMetrics();
+                    register(m, "gridgame:type=GameMetrics", GameMetricsMBean.class);
+                    instance = m;
+                }
+            }
+        }
+        return m;
+    }
+
+    private static <T> void register(T bean, String name, Class<T> view) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(new StandardMBean(bean, view), objectName);
+            }
+        } catch (JMException e) {
+            log.warn("Cannot register {}: {}", name, e.getMessage());
+        }
+    }
+
+    // ---------- Recording ----------
+
+    public void turnCompleted(long roundTripNanos) {
+        turns.increment();
+        long micros = Math.max(0, roundTripNanos / 1000);
+        latencyBuckets[Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros | 1))].increment();
+        latencyCount.increment();
+        latencySumMicros.add(micros);
+        latencyMaxMicros.accumulate(micros);
+    }
+
+    public void turnTimedOut() {
+        turns.increment();
+        timeouts.increment();
+    }
+
+    public void tradeProposed() {
+        tradesProposed.increment();
+    }
+
+    public void tradeAnswered(boolean accepted) {
+        (accepted ? tradesAccepted : tradesRejected).increment();
+    }
+
+    public void betrayal(String betrayer) {
+        betrayals.increment();
+        player(betrayer).betrayals.increment();
+    }
+
+    // Blocked turns in a row for player; 0 once it moves again
+    public void blockedStreak(String player, int streak) {
+        PlayerMetrics p = player(player);
+        p.blockedStreak = streak;
+        p.maxBlockedStreak.accumulate(streak);
+    }
+
+    // Messages waiting in the player's queue, sampled when it handles one
+    public void queueDepth(String player, int depth) {
+        PlayerMetrics p = player(player);
+        p.queueDepth = depth;
+        p.maxQueueDepth.accumulate(depth);
+    }
+
+    // Messages waiting in a MainAgent's queue, sampled when it handles one
+    public void coordinatorQueueDepth(int depth) {
+        coordinatorQueueDepth = depth;
+        maxCoordinatorQueueDepth.accumulate(depth);
+    }
+
+    public PlayerMetrics player(String name) {
+        PlayerMetrics p = players.get(name);
+        return p != null ? p : players.computeIfAbsent(name, n -> {
+            PlayerMetrics created = new PlayerMetrics(n);
+            register(created, "gridgame:type=PlayerMetrics,name=" + ObjectName.quote(n), PlayerMBean.class);
+            return created;
+        });
+    }
+
+    // ---------- GameMetricsMBean ----------
+
+    @Override
+    public long getTurns() {
+        return turns.sum();
+    }
+
+    @Override
+    public synchronized double getTurnsPerSecond() {
+        // Rate over the time since the previous sample, resampled at most once a second
+        long now = System.nanoTime();
+        if (now - sampleNanos >= TimeUnit.SECONDS.toNanos(1)) {
+            long total = turns.sum();
+            turnsPerSecond = (total - sampleTurns) * 1e9 / (now - sampleNanos);
+            sampleTurns = total;
+            sampleNanos = now;
+        }
+        return turnsPerSecond;
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getTradesProposed() {
+        return tradesProposed.sum();
+    }
+
+    @Override
+    public long getTradesAccepted() {
+        return tradesAccepted.sum();
+    }
+
+    @Override
+    public long getTradesRejected() {
+        return tradesRejected.sum();
+    }
+
+    @Override
+    public long getBetrayals() {
+        return betrayals.sum();
+    }
+
+    @Override
+    public double getTurnLatencyMeanMicros() {
+        long count = latencyCount.sum();
+        return count == 0 ? 0 : (double) latencySumMicros.sum() / count;
+    }
+
+    @Override
+    public long getTurnLatencyP50Micros() {
+        return latencyPercentile(0.50);
+    }
+
+    @Override
+    public long getTurnLatencyP99Micros() {
+        return latencyPercentile(0.99);
+    }
+
+    @Override
+    public long getTurnLatencyMaxMicros() {
+        return latencyMaxMicros.get();
+    }
+
+    // Upper bound of the bucket holding the given fraction of round trips
+    private long latencyPercentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencyBuckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min((2L << i) - 1, latencyMaxMicros.get());
+        }
+        return latencyMaxMicros.get();
+    }
+
+    @Override
+    public int getCoordinatorQueueDepth() {
+        return coordinatorQueueDepth;
+    }
+
+    @Override
+    public long getMaxCoordinatorQueueDepth() {
+        return maxCoordinatorQueueDepth.get();
+    }
+
+    @Override
+    public String[] getPlayerSummaries() {
+        List<String> lines = new ArrayList<>();
+        for (PlayerMetrics p : players.values()) {
+            lines.add(p.name + " betrayals=" + p.getBetrayals()
+                    + " blockedStreak=" + p.getBlockedStreak() + " maxBlockedStreak=" + p.getMaxBlockedStreak()
+                    + " queueDepth=" + p.getQueueDepth() + " maxQueueDepth=" + p.getMaxQueueDepth());
+        }
+        lines.sort(null);
+        return lines.toArray(new String[0]);
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder a : List.of(turns, timeouts, tradesProposed, tradesAccepted, tradesRejected, betrayals,
+                latencyCount, latencySumMicros)) {
+            a.reset();
+        }
+        for (LongAdder b : latencyBuckets) b.reset();
+        latencyMaxMicros.reset();
+        maxCoordinatorQueueDepth.reset();
+        coordinatorQueueDepth = 0;
+        for (PlayerMetrics p : players.values()) p.reset();
+        synchronized (this) {
+            sampleNanos = System.nanoTime();
+            sampleTurns = 0;
+            turnsPerSecond = 0;
+        }
+    }
+
+    // ---------- Snapshot file ----------
+
+    /**
+     * Write a snapshot to file every intervalMs from a daemon thread until
+     * stopSnapshots(); a later call replaces the previous schedule.
+     */
+    public synchronized void startSnapshots(Path file, long intervalMs) {
+        stopSnapshots();
+        snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "game-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshots.scheduleAtFixedRate(() -> writeSnapshot(file), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopSnapshots() {
+        if (snapshots != null) {
+            snapshots.shutdown();
+            snapshots = null;
+        }
+    }
+
+    /**
+     * Write the current values as "key=value" lines. The file is replaced
+     * atomically, so readers never see half a snapshot.
+     */
+    public void writeSnapshot(Path file) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# gridgame metrics ").append(Instant.now()).append('\n');
+        sb.append("turns=").append(getTurns()).append('\n');
+        sb.append("turnsPerSecond=").append(String.format("%.1f", getTurnsPerSecond())).append('\n');
+        sb.append("timeouts=").append(getTimeouts()).append('\n');
+        sb.append("tradesProposed=").append(getTradesProposed()).append('\n');
+        sb.append("tradesAccepted=").append(getTradesAccepted()).append('\n');
+        sb.append("tradesRejected=").append(getTradesRejected()).append('\n');
+        sb.append("betrayals=").append(getBetrayals()).append('\n');
+        sb.append("turnLatencyMeanMicros=").append(String.format("%.0f", getTurnLatencyMeanMicros())).append('\n');
+        sb.append("turnLatencyP50Micros=").append(getTurnLatencyP50Micros()).append('\n');
+        sb.append("turnLatencyP99Micros=").append(getTurnLatencyP99Micros()).append('\n');
+        sb.append("turnLatencyMaxMicros=").append(getTurnLatencyMaxMicros()).append('\n');
+        sb.append("coordinatorQueueDepth=").append(getCoordinatorQueueDepth()).append('\n');
+        sb.append("maxCoordinatorQueueDepth=").append(getMaxCoordinatorQueueDepth()).append('\n');
+        for (PlayerMetrics p : players.values()) {
+            String prefix = "player." + p.name + ".";
+            sb.append(prefix).append("betrayals=").append(p.getBetrayals()).append('\n');
+            sb.append(prefix).append("blockedStreak=").append(p.getBlockedStreak()).append('\n');
+            sb.append(prefix).append("maxBlockedStreak=").append(p.getMaxBlockedStreak()).append('\n');
+            sb.append(prefix).append("queueDepth=").append(p.getQueueDepth()).append('\n');
+            sb.append(prefix).append("maxQueueDepth=").append(p.getMaxQueueDepth()).append('\n');
+        }
+
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, sb);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Cannot write metrics snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * JMX view of one player's counters.
+     */
+    public interface PlayerMBean {
+
+        long getBetrayals();
+
+        int getBlockedStreak();
+
+        long getMaxBlockedStreak();
+
+        int getQueueDepth();
+
+        long getMaxQueueDepth();
+    }
+
+    public static final class PlayerMetrics implements PlayerMBean {
+        private final String name;
+        private final LongAdder betrayals = new LongAdder();
+        private final LongAccumulator maxBlockedStreak = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+        private volatile int blockedStreak;
+        private volatile int queueDepth;
+
+        private PlayerMetrics(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public long getBetrayals() {
+            return betrayals.sum();
+        }
+
+        @Override
+        public int getBlockedStreak() {
+            return blockedStreak;
+        }
+
+        @Override
+        public long getMaxBlockedStreak() {
+            return maxBlockedStreak.get();
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        @Override
+        public long getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        private void reset() {
+            betrayals.reset();
+            maxBlockedStreak.reset();
+            maxQueueDepth.reset();
+            blockedStreak = 0;
+            queueDepth = 0;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package gridgame;
+
+/**
+ * JMX view of GameMetrics, registered as gridgame:type=GameMetrics.
+ * Latencies are turn round trips (your-turn sent to turn-result received)
+ * in microseconds.
+ */
+public interface GameMetricsMBean {
+
+    long getTurns();
+
+    double getTurnsPerSecond();
+
+    long getTimeouts();
+
+    long getTradesProposed();
+
+    long getTradesAccepted();
+
+    long getTradesRejected();
+
+    long getBetrayals();
+
+    double getTurnLatencyMeanMicros();
+
+    long getTurnLatencyP50Micros();
+
+    long getTurnLatencyP99Micros();
+
+    long getTurnLatencyMaxMicros();
+
+    // Messages waiting in a MainAgent's queue: the latest sample and the most seen
+    int getCoordinatorQueueDepth();
+
+    long getMaxCoordinatorQueueDepth();
+
+    // One "name key=value ..." line per player
+    String[] getPlayerSummaries();
+
+    void reset();
+}
@@ -0,0 +1,52 @@
+package gridgame;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The game's random number generator: SplitMix64, whose whole state is one
+ * long. Unlike java.util.Random or SplittableRandom that state can be read
+ * and set, so a GameSnapshot can store it and a restored game draws exactly
+ * the numbers the original would have drawn next.
+ *
+ * A game has one seed, and every part of it draws from its own stream of
+ * that seed: the board ("grid"), the placement of the players ("placement")
+ * and each seat (player()). GameEngine and the agents use the same streams,
+ * so a seed gives the same game in both, and no two players or parallel
+ * games share a generator.
+ */
+public final class GameRandom implements RandomGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    // The named stream of a game; different names give independent sequences
+    public static GameRandom stream(long seed, String name) {
+        return new GameRandom(mix(mix(seed) ^ name.hashCode()));
+    }
+
+    // The stream of the player in the given seat
+    public static GameRandom player(long seed, int seat) {
+        return stream(seed, "player" + seat);
+    }
+
+    // Current state, for a snapshot; new GameRandom(state()) continues the same sequence
+    public long state() {
+        return state;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,45 @@
+package gridgame;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of one headless game, as returned by {@link GameEngine#run()}.
+ */
+public record GameResult(long seed, Outcome outcome, String winner, int turns, List<PlayerStats> players) {
+
+    public enum Outcome {
+        WIN,        // a player reached their goal (finishers of them, or as many as could)
+        DRAW,       // every player was eliminated, blocked for MAX_BLOCKED_TURNS in a row
+        TURN_LIMIT  // MAX_GAME_TURNS reached without a winner
+    }
+
+    // Per-player counters collected while the game was played; rank is the order of arrival (1 first), 0 for the rest
+    public record PlayerStats(String name,
+                              boolean reachedGoal,
+                              int moves,
+                              int blockedTurns,
+                              int tradesProposed,
+                              int tradesAccepted,
+                              int betrayals,
+                              int tokensLeft,
+                              int rank) {
+    }
+
+    public boolean hasWinner() {
+        return outcome == Outcome.WIN;
+    }
+
+    // The names of the players that reached their goals, first arrival first
+    public List<String> ranking() {
+        List<PlayerStats> ranked = new ArrayList<>();
+        for (PlayerStats p : players) {
+            if (p.rank() > 0) ranked.add(p);
+        }
+        ranked.sort(Comparator.comparingInt(PlayerStats::rank));
+        List<String> names = new ArrayList<>(ranked.size());
+        for (PlayerStats p : ranked) names.add(p.name());
+        return names;
+    }
+}
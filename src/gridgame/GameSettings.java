@@ -0,0 +1,230 @@
+package gridgame;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The tunable knobs of one game. GameConfig holds the defaults; a settings
+ * value is immutable and validated on construction, so games with different
+ * parameters can run side by side in one JVM.
+ *
+ * MainAgent receives it as its agent argument and forwards it to the players
+ * in the init message (see toMessage()/fromMessage()). It can be loaded from a
+ * properties file and/or "key=value" command line arguments, using the
+ * component names as keys, e.g. "numPlayers=3 betrayalProbability=0.5".
+ */
+public record GameSettings(int numPlayers,
+                           int gridWidth,
+                           int gridHeight,
+                           int numColors,
+                           int tokensPerPlayer,
+                           double betrayalProbability,
+                           int maxBlockedTurns,
+                           int maxGameTurns,
+                           int turnDelayMs,
+                           int turnTimeoutMs,
+                           boolean simultaneousRounds,
+                           boolean tradeClearing,
+                           boolean exclusiveCells,
+                           int tradeRadius,
+                           int finishers,
+                           boolean sharedReputation) {
+
+    public GameSettings {
+        if (gridWidth < 1 || gridHeight < 1) {
+            throw new IllegalArgumentException("grid must be at least 1x1: " + gridWidth + "x" + gridHeight);
+        }
+        if (numPlayers < 2 || numPlayers > gridWidth * gridHeight) {
+            throw new IllegalArgumentException("numPlayers must be between 2 and the number of cells: " + numPlayers);
+        }
+        if (numColors < 1 || numColors > TokenColor.COUNT) {
+            throw new IllegalArgumentException("numColors must be between 1 and " + TokenColor.COUNT + ": " + numColors);
+        }
+        if (tokensPerPlayer < 0) {
+            throw new IllegalArgumentException("tokensPerPlayer must not be negative: " + tokensPerPlayer);
+        }
+        if (!(betrayalProbability >= 0.0 && betrayalProbability <= 1.0)) {
+            throw new IllegalArgumentException("betrayalProbability must be within [0, 1]: " + betrayalProbability);
+        }
+        if (maxBlockedTurns < 1) {
+            throw new IllegalArgumentException("maxBlockedTurns must be at least 1: " + maxBlockedTurns);
+        }
+        if (maxGameTurns < 1) {
+            throw new IllegalArgumentException("maxGameTurns must be at least 1: " + maxGameTurns);
+        }
+        if (turnDelayMs < 0) {
+            throw new IllegalArgumentException("turnDelayMs must not be negative: " + turnDelayMs);
+        }
+        if (turnTimeoutMs < 1) {
+            throw new IllegalArgumentException("turnTimeoutMs must be at least 1: " + turnTimeoutMs);
+        }
+        if (tradeClearing && !simultaneousRounds) {
+            throw new IllegalArgumentException("tradeClearing needs simultaneousRounds");
+        }
+        if (tradeRadius < 0) {
+            throw new IllegalArgumentException("tradeRadius must not be negative: " + tradeRadius);
+        }
+        if (finishers < 1 || finishers > numPlayers) {
+            throw new IllegalArgumentException("finishers must be between 1 and numPlayers: " + finishers);
+        }
+    }
+
+    // The values compiled into GameConfig
+    public static GameSettings defaults() {
+        return new GameSettings(
+                GameConfig.NUM_PLAYERS,
+                GameConfig.GRID_WIDTH,
+                GameConfig.GRID_HEIGHT,
+                GameConfig.NUM_COLORS,
+                GameConfig.TOKENS_PER_PLAYER,
+                GameConfig.BETRAYAL_PROBABILITY,
+                GameConfig.MAX_BLOCKED_TURNS,
+                GameConfig.MAX_GAME_TURNS,
+                GameConfig.TURN_DELAY_MS,
+                GameConfig.TURN_TIMEOUT_MS,
+                GameConfig.SIMULTANEOUS_ROUNDS,
+                GameConfig.TRADE_CLEARING,
+                GameConfig.EXCLUSIVE_CELLS,
+                GameConfig.TRADE_RADIUS,
+                GameConfig.FINISHERS,
+                GameConfig.SHARED_REPUTATION);
+    }
+
+    /**
+     * Return a copy with one setting replaced. Unknown keys and malformed
+     * values throw IllegalArgumentException.
+     */
+    public GameSettings with(String key, String value) {
+        return with(Map.of(key, value));
+    }
+
+    /**
+     * Return a copy with several settings replaced at once. The result is
+     * validated only after all of them are applied, so related values (e.g.
+     * numPlayers and the grid size) can change together.
+     */
+    public GameSettings with(Map<String, String> values) {
+        int n = numPlayers, w = gridWidth, h = gridHeight, colors = numColors, tokens = tokensPerPlayer;
+        double betrayal = betrayalProbability;
+        int maxBlocked = maxBlockedTurns, maxTurns = maxGameTurns, delay = turnDelayMs, timeout = turnTimeoutMs;
+        boolean simultaneous = simultaneousRounds, clearing = tradeClearing, exclusive = exclusiveCells, shared = sharedReputation;
+        int radius = tradeRadius, finish = finishers;
+
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            String key = e.getKey().trim();
+            String value = e.getValue().trim();
+            try {
+                switch (key) {
+                    case "numPlayers" -> n = Integer.parseInt(value);
+                    case "gridWidth" -> w = Integer.parseInt(value);
+                    case "gridHeight" -> h = Integer.parseInt(value);
+                    case "numColors" -> colors = Integer.parseInt(value);
+                    case "tokensPerPlayer" -> tokens = Integer.parseInt(value);
+                    case "betrayalProbability" -> betrayal = Double.parseDouble(value);
+                    case "maxBlockedTurns" -> maxBlocked = Integer.parseInt(value);
+                    case "maxGameTurns" -> maxTurns = Integer.parseInt(value);
+                    case "turnDelayMs" -> delay = Integer.parseInt(value);
+                    case "turnTimeoutMs" -> timeout = Integer.parseInt(value);
+                    case "simultaneousRounds" -> simultaneous = parseBoolean(value);
+                    case "tradeClearing" -> clearing = parseBoolean(value);
+                    case "exclusiveCells" -> exclusive = parseBoolean(value);
+                    case "tradeRadius" -> radius = Integer.parseInt(value);
+                    case "finishers" -> finish = Integer.parseInt(value);
+                    case "sharedReputation" -> shared = parseBoolean(value);
+                    default -> throw new IllegalArgumentException("Unknown setting '" + key + "'");
+                }
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Bad value for " + key + ": '" + value + "'", ex);
+            }
+        }
+        return new GameSettings(n, w, h, colors, tokens, betrayal, maxBlocked, maxTurns, delay, timeout, simultaneous, clearing,
+                exclusive, radius, finish, shared);
+    }
+
+    // Boolean.parseBoolean would quietly turn a typo into false
+    private static boolean parseBoolean(String value) {
+        return switch (value.toLowerCase()) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new NumberFormatException("not a boolean: " + value);
+        };
+    }
+
+    public static GameSettings load(Path file) throws IOException {
+        Map<String, String> values = new LinkedHashMap<>();
+        readProperties(file, values);
+        return defaults().with(values);
+    }
+
+    /**
+     * Build settings from command line arguments, applied in order on top of
+     * the defaults: a properties file (any argument without '=') or a
+     * key=value override.
+     */
+    public static GameSettings fromArgs(String... args) throws IOException {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                readProperties(Path.of(arg), values);
+            } else {
+                values.put(arg.substring(0, eq).trim(), arg.substring(eq + 1));
+            }
+        }
+        return defaults().with(values);
+    }
+
+    private static void readProperties(Path file, Map<String, String> values) throws IOException {
+        Properties props = new Properties();
+        try (Reader in = Files.newBufferedReader(file)) {
+            props.load(in);
+        }
+        for (String key : props.stringPropertyNames()) {
+            values.put(key.trim(), props.getProperty(key));
+        }
+    }
+
+    // Format for the init message: "numPlayers=4,gridWidth=7,..."
+    public String toMessage() {
+        return "numPlayers=" + numPlayers
+                + ",gridWidth=" + gridWidth
+                + ",gridHeight=" + gridHeight
+                + ",numColors=" + numColors
+                + ",tokensPerPlayer=" + tokensPerPlayer
+                + ",betrayalProbability=" + betrayalProbability
+                + ",maxBlockedTurns=" + maxBlockedTurns
+                + ",maxGameTurns=" + maxGameTurns
+                + ",turnDelayMs=" + turnDelayMs
+                + ",turnTimeoutMs=" + turnTimeoutMs
+                + ",simultaneousRounds=" + simultaneousRounds
+                + ",tradeClearing=" + tradeClearing
+                + ",exclusiveCells=" + exclusiveCells
+                + ",tradeRadius=" + tradeRadius
+                + ",finishers=" + finishers
+                + ",sharedReputation=" + sharedReputation;
+    }
+
+    public static GameSettings fromMessage(String content) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String pair : content.split(",")) {
+            String[] kv = pair.split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("Bad setting '" + pair + "'");
+            values.put(kv[0], kv[1]);
+        }
+        return defaults().with(values);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("players=%d grid=%dx%d colors=%d tokens=%d betrayal=%.2f maxBlocked=%d maxTurns=%d%s%s%s%s%s%s",
+                numPlayers, gridWidth, gridHeight, numColors, tokensPerPlayer, betrayalProbability, maxBlockedTurns, maxGameTurns,
+                simultaneousRounds ? " simultaneous" : "", tradeClearing ? " clearing" : "",
+                exclusiveCells ? " exclusive" : "", tradeRadius > 0 ? " radius=" + tradeRadius : "",
+                finishers > 1 ? " finishers=" + finishers : "", sharedReputation ? " shared-reputation" : "");
+    }
+}
@@ -0,0 +1,171 @@
+package gridgame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The whole state of a game at a turn boundary: settings, board, turn
+ * count, whose turn is next, the generator state and every player (position,
+ * tokens, blocked streak, counters, trade memory and planned route), and
+ * with sharedReputation the game's reputation board (null otherwise). GameEngine.snapshot()
+ * and MainAgent's checkpoints take one; GameEngine.restore() and StartJADE
+ * --restore continue from it, and restoring one snapshot many times with
+ * different seeds forks what-if continuations without replaying the game.
+ *
+ * The binary form is a magic number and a version, then the fields encoded
+ * like MessageCodec (varints, one byte per color, the board one byte per
+ * cell).
+ */
+public record GameSnapshot(GameSettings settings, long seed, long randomState, int turn, int nextSeat, Grid grid,
+                           List<PlayerState> players, Reputation board) {
+
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int VERSION = 4;
+
+    /**
+     * One player, by seat. blockedTurns is its blocked streak, which
+     * eliminates it at maxBlockedTurns (GameStatus). randomState is the state of the seat's own stream
+     * (GameRandom.player()). rank is the player's arrival rank, 0 while it
+     * has not reached its goal (see GameStatus).
+     */
+    public record PlayerState(String name, String strategy, int x, int y, int goalX, int goalY, TokenInventory tokens,
+                              int blockedTurns, int moves, int totalBlocked, int tradesProposed,
+                              int tradesAccepted, int betrayals, long randomState, TradeMemory memory,
+                              PathPlanner.Route route, int rank) {
+    }
+
+    public byte[] toBytes() {
+        MessageCodec.Out out = new MessageCodec.Out(256 + grid.size());
+        out.writeLong(((long) MAGIC << 32) | VERSION);
+        MessageCodec.writeSettings(out, settings);
+        out.writeLong(seed);
+        out.writeLong(randomState);
+        out.writeVarint(turn);
+        out.writeVarint(nextSeat);
+        out.writeGrid(grid);
+        out.writeVarint(players.size());
+        for (PlayerState p : players) {
+            out.writeString(p.name());
+            out.writeString(p.strategy());
+            out.writeVarint(p.x());
+            out.writeVarint(p.y());
+            out.writeVarint(p.goalX());
+            out.writeVarint(p.goalY());
+            out.writeInventory(p.tokens());
+            out.writeVarint(p.blockedTurns());
+            out.writeVarint(p.moves());
+            out.writeVarint(p.totalBlocked());
+            out.writeVarint(p.tradesProposed());
+            out.writeVarint(p.tradesAccepted());
+            out.writeVarint(p.betrayals());
+            out.writeLong(p.randomState());
+            MessageCodec.writeMemory(out, p.memory());
+            MessageCodec.writeRoute(out, p.route());
+            out.writeVarint(p.rank());
+        }
+        out.writeByte(board == null ? 0 : 1);
+        if (board != null) MessageCodec.writeScores(out, board.origin(), board.round(), board.changedSince(Integer.MIN_VALUE));
+        return out.toByteArray();
+    }
+
+    public static GameSnapshot fromBytes(byte[] data) {
+        MessageCodec.In in = new MessageCodec.In(data);
+        long header = in.readLong();
+        if ((int) (header >>> 32) != MAGIC) throw new IllegalArgumentException("Not a game snapshot");
+        int version = (int) header;
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported snapshot version " + version);
+
+        GameSettings settings = MessageCodec.readSettings(in);
+        long seed = in.readLong();
+        long randomState = in.readLong();
+        int turn = in.readVarint();
+        int nextSeat = in.readVarint();
+        Grid grid = in.readGrid();
+        int n = in.readVarint();
+        List<PlayerState> players = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String name = in.readString(), strategy = in.readString();
+            int x = in.readVarint(), y = in.readVarint(), goalX = in.readVarint(), goalY = in.readVarint();
+            TokenInventory tokens = in.readInventory();
+            players.add(new PlayerState(name, strategy, x, y, goalX, goalY, tokens, in.readVarint(),
+                    in.readVarint(), in.readVarint(), in.readVarint(), in.readVarint(), in.readVarint(),
+                    in.readLong(), MessageCodec.readMemory(in), MessageCodec.readRoute(in), in.readVarint()));
+        }
+        Reputation board = in.readByte() != 0 ? MessageCodec.readReputation(in) : null;
+        return new GameSnapshot(settings, seed, randomState, turn, nextSeat, grid, players, board);
+    }
+
+    // Write to a temporary file first, so a crash never leaves a half-written snapshot behind
+    public void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, toBytes());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static GameSnapshot read(Path file) throws IOException {
+        return fromBytes(Files.readAllBytes(file));
+    }
+
+    /**
+     * Usage: GameSnapshot save SEED TURNS FILE [key=value ...]  play a headless game TURNS turns and save it
+     *        GameSnapshot resume FILE                          play a saved game to the end
+     *        GameSnapshot fork FILE N [FIRST_SEED]             play N continuations with seeds FIRST_SEED..
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: GameSnapshot save SEED TURNS FILE [key=value ...] | resume FILE | fork FILE N [FIRST_SEED]");
+            return;
+        }
+        switch (args[0]) {
+            case "save" -> {
+                GameSettings settings = GameSettings.fromArgs(java.util.Arrays.copyOfRange(args, 4, args.length));
+                GameEngine engine = new GameEngine(settings, Long.parseLong(args[1]));
+                engine.start();
+                for (int t = Integer.parseInt(args[2]); t > 0 && engine.step(); t--) {
+                    // play on
+                }
+                if (engine.isOver()) {
+                    System.out.println("Game ended before that turn: " + engine.result().outcome());
+                    return;
+                }
+                GameSnapshot snapshot = engine.snapshot();
+                snapshot.write(Path.of(args[3]));
+                System.out.println(String.format("Saved turn %d to %s (%d bytes)", snapshot.turn(), args[3], snapshot.toBytes().length));
+            }
+            case "resume" -> {
+                GameResult result = GameEngine.restore(read(Path.of(args[1]))).run();
+                System.out.println(String.format("%s after %d turns%s", result.outcome(), result.turns(),
+                        result.hasWinner() ? ", winner " + result.winner() : ""));
+            }
+            case "fork" -> {
+                GameSnapshot snapshot = read(Path.of(args[1]));
+                int forks = Integer.parseInt(args[2]);
+                long firstSeed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+                int[] wins = new int[snapshot.players().size()];
+                int undecided = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < forks; i++) {
+                    GameResult result = GameEngine.restore(snapshot, firstSeed + i).run();
+                    if (!result.hasWinner()) {
+                        undecided++;
+                        continue;
+                    }
+                    for (int seat = 0; seat < wins.length; seat++) {
+                        if (result.players().get(seat).reachedGoal()) wins[seat]++;
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.println(String.format("%d continuations of turn %d in %.2fs (%.0f/s)", forks, snapshot.turn(), seconds, forks / seconds));
+                for (int seat = 0; seat < wins.length; seat++) {
+                    System.out.println(String.format("%-10s wins %.3f", snapshot.players().get(seat).name(), (double) wins[seat] / forks));
+                }
+                System.out.println(String.format("no winner %.3f", (double) undecided / forks));
+            }
+            default -> throw new IllegalArgumentException("Unknown command " + args[0]);
+        }
+    }
+}
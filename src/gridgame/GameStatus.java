@@ -0,0 +1,127 @@
+package gridgame;
+
+/**
+ * Who is still in a game, kept up to date turn by turn so that deciding
+ * whether the game is over never looks at all players. A player is active
+ * until it reaches its goal (it is ranked, in the order of arrival) or its
+ * blocked streak reaches maxBlockedTurns (it is eliminated). Players that
+ * are out leave the turn rotation but stay on the board and can still be
+ * traded with.
+ *
+ * The game ends when settings.finishers() players are ranked, when nobody
+ * is active any more, or after maxGameTurns turns. GameEngine and MainAgent
+ * keep one per game.
+ */
+public final class GameStatus {
+
+    private final int finishers;
+    private final int maxBlockedTurns;
+    private final int maxGameTurns;
+
+    private final int[] rank;          // by seat: 0 while in play, the arrival rank, or -1 when eliminated
+    private final int[] ranking;       // seats in order of arrival, the first finished used
+    private final int[] next, prev;    // the active seats as a ring, in seat order
+    private int active, finished, eliminated;
+
+    public GameStatus(GameSettings settings, int players) {
+        this.finishers = settings.finishers();
+        this.maxBlockedTurns = settings.maxBlockedTurns();
+        this.maxGameTurns = settings.maxGameTurns();
+        this.rank = new int[players];
+        this.ranking = new int[players];
+        this.next = new int[players];
+        this.prev = new int[players];
+        for (int seat = 0; seat < players; seat++) {
+            next[seat] = (seat + 1) % players;
+            prev[seat] = (seat + players - 1) % players;
+        }
+        this.active = players;
+    }
+
+    /**
+     * Account for a turn the player just played: it finishes when it stands
+     * on its goal, and is eliminated when its blocked streak is too long.
+     */
+    public void played(int seat, boolean atGoal, int blockedStreak) {
+        if (rank[seat] != 0) return;
+        if (atGoal) {
+            ranking[finished++] = seat;
+            leave(seat, finished);
+        } else if (blockedStreak >= maxBlockedTurns) {
+            eliminated++;
+            leave(seat, -1);
+        }
+    }
+
+    // The same for a player of a restored game, with its rank (0 when it has not arrived)
+    public void restore(int seat, int rank, int blockedStreak) {
+        if (rank > 0) {
+            ranking[rank - 1] = seat;
+            finished = Math.max(finished, rank);
+            leave(seat, rank);
+        } else if (blockedStreak >= maxBlockedTurns) {
+            eliminated++;
+            leave(seat, -1);
+        }
+    }
+
+    private void leave(int seat, int rank) {
+        this.rank[seat] = rank;
+        next[prev[seat]] = next[seat];
+        prev[next[seat]] = prev[seat];
+        active--;
+    }
+
+    public boolean inPlay(int seat) {
+        return rank[seat] == 0;
+    }
+
+    // The arrival rank (1 first), or 0
+    public int rank(int seat) {
+        return Math.max(0, rank[seat]);
+    }
+
+    public boolean isEliminated(int seat) {
+        return rank[seat] < 0;
+    }
+
+    /**
+     * The first active seat after seat in rotation (seat itself when nobody
+     * is left). A seat that left points to the one after it at the time, so
+     * this stays O(1) for the player that just played.
+     */
+    public int next(int seat) {
+        if (active == 0) return seat;
+        int s = next[seat];
+        while (!inPlay(s)) s = next[s];
+        return s;
+    }
+
+    public int active() {
+        return active;
+    }
+
+    public int finished() {
+        return finished;
+    }
+
+    public int eliminated() {
+        return eliminated;
+    }
+
+    // The first to arrive, or -1
+    public int winner() {
+        return finished > 0 ? ranking[0] : -1;
+    }
+
+    /**
+     * How the game ended after the given number of turns, or null while it
+     * goes on. A game with anyone ranked is won.
+     */
+    public GameResult.Outcome outcome(int turns) {
+        boolean over = finished >= finishers || active == 0 || turns >= maxGameTurns;
+        if (!over) return null;
+        if (finished > 0) return GameResult.Outcome.WIN;
+        return active == 0 ? GameResult.Outcome.DRAW : GameResult.Outcome.TURN_LIMIT;
+    }
+}
@@ -0,0 +1,130 @@
+package gridgame;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The board: one byte per cell holding the TokenColor ordinal, stored
+ * row-major (index = y * width + x). A Grid never changes after generation,
+ * so it can be shared freely between the engine, agents and the GUI.
+ */
+public final class Grid {
+
+    // Boards with at least this many cells are filled in parallel
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    // Rows filled from one random stream
+    private static final int ROWS_PER_BLOCK = 64;
+
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+    private final int numColors;
+
+    private Grid(int width, int height, byte[] cells, int numColors) {
+        this.width = width;
+        this.height = height;
+        this.cells = cells;
+        this.numColors = numColors;
+    }
+
+    /**
+     * Random board with colors drawn uniformly from the palette. The result
+     * only depends on the seed: blocks of rows get their own stream split off
+     * the seed in order, whether they are then filled sequentially or in
+     * parallel.
+     */
+    public static Grid generate(int width, int height, TokenColor[] palette, long seed) {
+        byte[] cells = new byte[Math.multiplyExact(width, height)];
+        int blocks = (height + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] streams = new SplittableRandom[blocks];
+        for (int b = 0; b < blocks; b++) streams[b] = root.split();
+
+        IntStream range = IntStream.range(0, blocks);
+        if (cells.length >= PARALLEL_THRESHOLD) range = range.parallel();
+        range.forEach(b -> {
+            SplittableRandom rand = streams[b];
+            int from = b * ROWS_PER_BLOCK * width;
+            int to = Math.min(height, (b + 1) * ROWS_PER_BLOCK) * width;
+            for (int i = from; i < to; i++) {
+                cells[i] = (byte) palette[rand.nextInt(palette.length)].ordinal();
+            }
+        });
+        int numColors = 0;
+        for (TokenColor c : palette) numColors = Math.max(numColors, c.ordinal() + 1);
+        return new Grid(width, height, cells, numColors);
+    }
+
+    public static Grid generate(int width, int height, TokenColor[] palette, Random rand) {
+        return generate(width, height, palette, rand.nextLong());
+    }
+
+    // Board from raw row-major ordinals (e.g. received in a message); the array is copied
+    public static Grid of(int width, int height, byte[] cells) {
+        if (cells.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " cells, got " + cells.length);
+        }
+        int numColors = 0;
+        for (byte c : cells) {
+            if ((c & 0xFF) >= TokenColor.COUNT) throw new IllegalArgumentException("Unknown token color " + (c & 0xFF));
+            numColors = Math.max(numColors, c + 1);
+        }
+        return new Grid(width, height, cells.clone(), numColors);
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    // One past the highest color ordinal on the board
+    public int numColors() {
+        return numColors;
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public TokenColor colorAt(int x, int y) {
+        return TokenColor.of(cells[y * width + x]);
+    }
+
+    public TokenColor colorAt(int index) {
+        return TokenColor.of(cells[index]);
+    }
+
+    // Raw ordinal of a cell, for loops that don't need the enum
+    public int ordinalAt(int index) {
+        return cells[index];
+    }
+
+    // Copy of the row-major ordinals
+    public byte[] toBytes() {
+        return cells.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Grid other && width == other.width && Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * width + Arrays.hashCode(cells);
+    }
+}
@@ -0,0 +1,156 @@
+package gridgame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Reads a GameJournal back, either to recompute statistics over all its
+ * games or to show one game in a GameGUI at any speed.
+ *
+ * Usage: JournalReplay FILE [stats]
+ *        JournalReplay FILE gui [game] [msPerTurn]
+ * game counts from 0; msPerTurn 0 replays as fast as the GUI draws.
+ */
+public final class JournalReplay {
+
+    private JournalReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: JournalReplay FILE [stats] | FILE gui [game] [msPerTurn]");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        String mode = args.length > 1 ? args[1] : "stats";
+
+        switch (mode) {
+            case "stats" -> printStats(file);
+            case "gui" -> replayGame(file,
+                    args.length > 2 ? Integer.parseInt(args[2]) : 0,
+                    args.length > 3 ? Long.parseLong(args[3]) : GameConfig.TURN_DELAY_MS);
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    // The same summary as GameEngine.main, plus event counts
+    private static void printStats(Path file) throws IOException {
+        Stats stats = new Stats();
+        long start = System.nanoTime();
+        GameJournal.read(file, stats::add);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long games = Math.max(1, stats.games);
+        System.out.println(String.format("%d games, %d events, %d bytes read in %.2fs (%.0f events/s)",
+                stats.games, stats.events, Files.size(file), seconds, stats.events / seconds));
+        System.out.println(String.format("wins=%d draws=%d turn-limit=%d avg turns=%.1f",
+                stats.outcomes[GameResult.Outcome.WIN.ordinal()],
+                stats.outcomes[GameResult.Outcome.DRAW.ordinal()],
+                stats.outcomes[GameResult.Outcome.TURN_LIMIT.ordinal()],
+                (double) stats.turns / games));
+        System.out.println(String.format("moves=%d blocks=%d trades proposed=%d accepted=%d rejected=%d betrayals=%d",
+                stats.moves, stats.blocks, stats.proposed, stats.accepted, stats.rejected, stats.betrayals));
+    }
+
+    private static class Stats {
+        private long events, games, turns;
+        private final long[] outcomes = new long[GameResult.Outcome.values().length];
+        private long moves, blocks, proposed, accepted, rejected, betrayals;
+
+        void add(GameJournal.Event event) {
+            events++;
+            if (event instanceof GameJournal.GameStart) {
+                games++;
+            } else if (event instanceof GameJournal.Move) {
+                moves++;
+            } else if (event instanceof GameJournal.Block) {
+                blocks++;
+            } else if (event instanceof GameJournal.TradeProposed) {
+                proposed++;
+            } else if (event instanceof GameJournal.TradeAccepted) {
+                accepted++;
+            } else if (event instanceof GameJournal.TradeRejected) {
+                rejected++;
+            } else if (event instanceof GameJournal.Betrayal) {
+                betrayals++;
+            } else if (event instanceof GameJournal.GameEnd e) {
+                outcomes[e.outcome().ordinal()]++;
+                turns += e.turns();
+            }
+        }
+    }
+
+    /**
+     * Drive a GameGUI from the events of one game, waiting msPerTurn at
+     * every new turn.
+     */
+    private static void replayGame(Path file, int gameIndex, long msPerTurn) throws IOException {
+        GuiReplay replay = new GuiReplay(gameIndex, msPerTurn);
+        GameJournal.read(file, replay::add);
+        if (replay.gui == null) {
+            System.out.println("No game " + gameIndex + " in " + file);
+        } else if (replay.end != null) {
+            System.out.println("Game " + gameIndex + ": " + replay.end.outcome()
+                    + (replay.end.winner() >= 0 ? " (" + replay.players.get(replay.end.winner()) + ")" : "")
+                    + " after " + replay.end.turns() + " turns");
+        }
+    }
+
+    private static class GuiReplay {
+        private final int gameIndex;
+        private final long msPerTurn;
+        private int game = -1;
+        private int lastTurn = 0;
+
+        private GameGUI gui;
+        private List<String> players;
+        private int[] goalX, goalY;
+        private GameJournal.GameEnd end;
+
+        GuiReplay(int gameIndex, long msPerTurn) {
+            this.gameIndex = gameIndex;
+            this.msPerTurn = msPerTurn;
+        }
+
+        void add(GameJournal.Event event) {
+            if (event instanceof GameJournal.GameStart e) {
+                game++;
+                if (game == gameIndex) {
+                    players = e.players();
+                    goalX = new int[players.size()];
+                    goalY = new int[players.size()];
+                    gui = new GameGUI(e.grid());
+                }
+                return;
+            }
+            if (game != gameIndex) return;
+
+            if (event instanceof GameJournal.PlayerInit e) {
+                goalX[e.seat()] = e.goalX();
+                goalY[e.seat()] = e.goalY();
+                gui.updatePlayerPosition(players.get(e.seat()), e.startX(), e.startY(), e.goalX(), e.goalY());
+            } else if (event instanceof GameJournal.TurnStart e) {
+                // In simultaneous rounds every player gets a TurnStart; pace once per round
+                if (e.turn() != lastTurn) {
+                    lastTurn = e.turn();
+                    pause();
+                }
+            } else if (event instanceof GameJournal.Move e) {
+                gui.updatePlayerPosition(players.get(e.seat()), e.x(), e.y(), goalX[e.seat()], goalY[e.seat()]);
+            } else if (event instanceof GameJournal.GameEnd e) {
+                end = e;
+            }
+        }
+
+        private void pause() {
+            if (msPerTurn <= 0) return;
+            try {
+                Thread.sleep(msPerTurn);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,683 @@
+package gridgame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Typed game messages and their compact binary form, carried as ACL
+ * byte-sequence content instead of ";"/","-separated strings.
+ *
+ * Layout: one tag byte, then the fields. Coordinates and counts are unsigned
+ * varints, a token color is one byte (its TokenColor ordinal, 0xFF for
+ * "NONE"), an inventory is the number of colors followed by one count per
+ * color, names are varint-length UTF-8 and the grid is its width, height and
+ * one ordinal byte per cell.
+ *
+ * Every message also keeps the old textual format (toText()/fromText()) for
+ * debugging and log output; MessageCodecTest round-trips random messages
+ * through both.
+ */
+public final class MessageCodec {
+
+    private static final byte INIT = 1;
+    private static final byte TURN_REQUEST = 2;
+    private static final byte TURN_RESULT = 3;
+    private static final byte TRADE_PROPOSAL = 4;
+    private static final byte TRADE_REPLY = 5;
+    private static final byte LEASE = 6;
+    private static final byte AGENT_STATE = 7;
+    private static final byte TRADE_PAYMENT = 8;
+    private static final byte REPUTATION_QUERY = 9;
+    private static final byte REPUTATION_SCORES = 10;
+
+    private static final int NO_COLOR = 0xFF;
+    private static final String NONE = "NONE";
+
+    private MessageCodec() {
+    }
+
+    public sealed interface Message permits Init, TurnRequest, TurnResult, TradeProposal, TradeReply, TradePayment, Lease,
+            AgentState, ReputationQuery, ReputationScores {
+        // The pre-codec string content of this message
+        String toText();
+    }
+
+    // MainAgent -> player, conversation "init"; the player draws from its seat's stream of the game seed (GameRandom)
+    public record Init(int startX, int startY, int goalX, int goalY,
+                       TokenInventory tokens, List<String> players, GameSettings settings, Grid grid, long seed) implements Message {
+        // "startX,startY;goalX,goalY;token1,token2,...;Player1,Player2,...;numPlayers=4,...;0123/3210/...;seed"
+        public String toText() {
+            return startX + "," + startY + ";" + goalX + "," + goalY + ";" + tokensText(tokens)
+                    + ";" + String.join(",", players) + ";" + settings.toMessage() + ";" + gridText(grid) + ";" + seed;
+        }
+    }
+
+    /**
+     * MainAgent -> player, conversation "your-turn": the turn number; the
+     * player plans its own step. With tradeRadius, partners are the players
+     * near enough to propose to, nearest first (null: anyone).
+     */
+    public record TurnRequest(int turn, List<String> partners) implements Message {
+        public TurnRequest(int turn) {
+            this(turn, null);
+        }
+
+        // "turn" or "turn;Player2,Player5,..."
+        public String toText() {
+            return partners == null ? Integer.toString(turn) : turn + ";" + String.join(",", partners);
+        }
+    }
+
+    /**
+     * Player -> MainAgent, conversation "turn-result"; trade is the proposal
+     * made this turn, if any, and order a blocked player's TradeClearing order.
+     * MainAgent sends it back as "round-result" with the confirmed position,
+     * only the tokens handed back (a move that was denied) as tokens, and the
+     * clearing trade that filled the order as trade (partner: who gave us
+     * need, offer: what we gave); the player applies them to its own tokens,
+     * which may have changed through trades since its turn result.
+     */
+    public record TurnResult(int x, int y, TokenInventory tokens, boolean stillPlaying, TradeReport trade,
+                             TradeOrder order) implements Message {
+        public TurnResult(int x, int y, TokenInventory tokens, boolean stillPlaying) {
+            this(x, y, tokens, stillPlaying, null, null);
+        }
+
+        public TurnResult(int x, int y, TokenInventory tokens, boolean stillPlaying, TradeReport trade) {
+            this(x, y, tokens, stillPlaying, trade, null);
+        }
+
+        // "x;y;token1,token2,...;OK|BLOCKED[;partner:need:offer:ACCEPTED|REJECTED|BETRAYED][;order:need:token1,...]"
+        public String toText() {
+            String text = x + ";" + y + ";" + tokensText(tokens) + ";" + (stillPlaying ? "OK" : "BLOCKED");
+            if (trade != null) text += ";" + trade.toText();
+            return order == null ? text : text + ";order:" + order.need() + ":" + tokensText(order.spare());
+        }
+    }
+
+    // What a blocked player needs and can give for it, cleared by MainAgent with everyone else's
+    public record TradeOrder(TokenColor need, TokenInventory spare) {
+    }
+
+    // How a blocked player's trade went, so MainAgent can record it; betrayed means we did not pay
+    public record TradeReport(String partner, TokenColor need, TokenColor offer, boolean accepted, boolean betrayed) {
+        String toText() {
+            return partner + ":" + need + ":" + (offer == null ? NONE : offer) + ":"
+                    + (!accepted ? "REJECTED" : betrayed ? "BETRAYED" : "ACCEPTED");
+        }
+    }
+
+    // Player -> player, conversation "negotiation"; offer is null when there is nothing to give, turn the proposer's
+    public record TradeProposal(TokenColor need, TokenColor offer, int turn) implements Message {
+        // "Need:Blue;Offer:Green;Turn:12"
+        public String toText() {
+            return "Need:" + need + ";Offer:" + (offer == null ? NONE : offer) + ";Turn:" + turn;
+        }
+    }
+
+    // Answer to a TradeProposal: the token handed over, or null on reject
+    public record TradeReply(TokenColor token) implements Message {
+        public String toText() {
+            return token == null ? NONE : token.toString();
+        }
+    }
+
+    // Proposer -> partner after an accepted trade, conversation "trade-payment": the offer, or null when betrayed
+    public record TradePayment(TokenColor token, int turn) implements Message {
+        // "Green;12" or "NONE;12"
+        public String toText() {
+            return (token == null ? NONE : token.toString()) + ";" + turn;
+        }
+    }
+
+    // Player -> the session's reputation board (MainAgent), conversation "reputation-query": scores changed since round
+    public record ReputationQuery(int since) implements Message {
+        public String toText() {
+            return Integer.toString(since);
+        }
+    }
+
+    // The board's answer, conversation "reputation-scores": raw scores as Reputation.changedSince() gives them
+    public record ReputationScores(int origin, int round, Map<String, Double> scores) implements Message {
+        // "origin;round;Player1=1.0,Player2=-0.5"
+        public String toText() {
+            return origin + ";" + round + ";" + scoresText(scores);
+        }
+    }
+
+    // MainAgent -> pooled player, conversation "lease": join this session until released
+    public record Lease(String session) implements Message {
+        public String toText() {
+            return session;
+        }
+    }
+
+    /**
+     * What only the player agent knows about its game, for a GameSnapshot:
+     * player -> MainAgent as the answer to a "checkpoint" request, and back
+     * to a fresh agent as "restore" after its init message.
+     */
+    public record AgentState(String strategy, int blockedTurns, long randomState, TradeMemory memory,
+                             PathPlanner.Route route) implements Message {
+        // "strategy;blockedTurns;randomState;player:betrayals:honest:LAST|-,...;position;cell,...;tokens;origin;round;player=score,..."
+        public String toText() {
+            StringBuilder sb = new StringBuilder();
+            for (String p : memory.players()) {
+                if (sb.length() > 0) sb.append(',');
+                sb.append(p).append(':').append(memory.betrayals(p)).append(':').append(memory.honestTrades(p))
+                        .append(':').append(memory.betrayedLastTime(p) ? "LAST" : "-");
+            }
+            StringBuilder cells = new StringBuilder();
+            for (int cell : route.cells()) {
+                if (cells.length() > 0) cells.append(',');
+                cells.append(cell);
+            }
+            Reputation r = memory.reputation();
+            return strategy + ";" + blockedTurns + ";" + randomState + ";" + sb + ";" + route.position() + ";" + cells
+                    + ";" + tokensText(route.expected()) + ";" + r.origin() + ";" + r.round() + ";" + scoresText(r.changedSince(Integer.MIN_VALUE));
+        }
+    }
+
+    // ---- Binary form ----
+
+    public static byte[] encode(Message message) {
+        Out out = new Out(32);
+        if (message instanceof Init m) {
+            out.writeByte(INIT);
+            out.writeVarint(m.startX());
+            out.writeVarint(m.startY());
+            out.writeVarint(m.goalX());
+            out.writeVarint(m.goalY());
+            out.writeInventory(m.tokens());
+            out.writeVarint(m.players().size());
+            for (String p : m.players()) out.writeString(p);
+            writeSettings(out, m.settings());
+            out.writeGrid(m.grid());
+            out.writeLong(m.seed());
+        } else if (message instanceof TurnRequest m) {
+            out.writeByte(TURN_REQUEST);
+            out.writeVarint(m.turn());
+            // Number of partners + 1, 0 for anyone
+            out.writeVarint(m.partners() == null ? 0 : m.partners().size() + 1);
+            if (m.partners() != null) {
+                for (String p : m.partners()) out.writeString(p);
+            }
+        } else if (message instanceof TurnResult m) {
+            out.writeByte(TURN_RESULT);
+            out.writeVarint(m.x());
+            out.writeVarint(m.y());
+            out.writeInventory(m.tokens());
+            out.writeByte(m.stillPlaying() ? 1 : 0);
+            // Flags: 1 trade (2 accepted, 4 betrayed), 8 order
+            TradeReport t = m.trade();
+            TradeOrder o = m.order();
+            out.writeByte((t == null ? 0 : 1 | (t.accepted() ? 2 : 0) | (t.betrayed() ? 4 : 0)) | (o == null ? 0 : 8));
+            if (t != null) {
+                out.writeString(t.partner());
+                out.writeColor(t.need());
+                out.writeColor(t.offer());
+            }
+            if (o != null) {
+                out.writeColor(o.need());
+                out.writeInventory(o.spare());
+            }
+        } else if (message instanceof TradeProposal m) {
+            out.writeByte(TRADE_PROPOSAL);
+            out.writeColor(m.need());
+            out.writeColor(m.offer());
+            out.writeVarint(m.turn());
+        } else if (message instanceof TradeReply m) {
+            out.writeByte(TRADE_REPLY);
+            out.writeColor(m.token());
+        } else if (message instanceof TradePayment m) {
+            out.writeByte(TRADE_PAYMENT);
+            out.writeColor(m.token());
+            out.writeVarint(m.turn());
+        } else if (message instanceof ReputationQuery m) {
+            out.writeByte(REPUTATION_QUERY);
+            out.writeVarint(m.since());
+        } else if (message instanceof ReputationScores m) {
+            out.writeByte(REPUTATION_SCORES);
+            writeScores(out, m.origin(), m.round(), m.scores());
+        } else if (message instanceof AgentState m) {
+            out.writeByte(AGENT_STATE);
+            out.writeString(m.strategy());
+            out.writeVarint(m.blockedTurns());
+            out.writeLong(m.randomState());
+            writeMemory(out, m.memory());
+            writeRoute(out, m.route());
+        } else if (message instanceof Lease m) {
+            out.writeByte(LEASE);
+            out.writeString(m.session());
+        }
+        return out.toByteArray();
+    }
+
+    public static Message decode(byte[] data) {
+        In in = new In(data);
+        int tag = in.readByte();
+        return switch (tag) {
+            case INIT -> {
+                int sx = in.readVarint(), sy = in.readVarint(), gx = in.readVarint(), gy = in.readVarint();
+                TokenInventory tokens = in.readInventory();
+                int n = in.readVarint();
+                List<String> players = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) players.add(in.readString());
+                yield new Init(sx, sy, gx, gy, tokens, players, readSettings(in), in.readGrid(), in.readLong());
+            }
+            case TURN_REQUEST -> {
+                int turn = in.readVarint();
+                int n = in.readVarint() - 1;
+                List<String> partners = n < 0 ? null : new ArrayList<>(n);
+                for (int i = 0; i < n; i++) partners.add(in.readString());
+                yield new TurnRequest(turn, partners);
+            }
+            case TURN_RESULT -> {
+                int x = in.readVarint(), y = in.readVarint();
+                TokenInventory tokens = in.readInventory();
+                boolean stillPlaying = in.readByte() != 0;
+                int flags = in.readByte();
+                TradeReport trade = (flags & 1) == 0 ? null
+                        : new TradeReport(in.readString(), in.readColor(), in.readColor(), (flags & 2) != 0, (flags & 4) != 0);
+                TradeOrder order = (flags & 8) == 0 ? null : new TradeOrder(in.readColor(), in.readInventory());
+                yield new TurnResult(x, y, tokens, stillPlaying, trade, order);
+            }
+            case TRADE_PROPOSAL -> new TradeProposal(in.readColor(), in.readColor(), in.readVarint());
+            case TRADE_REPLY -> new TradeReply(in.readColor());
+            case TRADE_PAYMENT -> new TradePayment(in.readColor(), in.readVarint());
+            case REPUTATION_QUERY -> new ReputationQuery(in.readVarint());
+            case REPUTATION_SCORES -> {
+                int origin = in.readVarint(), round = in.readVarint();
+                yield new ReputationScores(origin, round, readScores(in));
+            }
+            case LEASE -> new Lease(in.readString());
+            case AGENT_STATE -> new AgentState(in.readString(), in.readVarint(), in.readLong(), readMemory(in), readRoute(in));
+            default -> throw new IllegalArgumentException("Unknown message tag " + tag);
+        };
+    }
+
+    // Decode and check the message type in one go
+    public static <T extends Message> T decode(byte[] data, Class<T> type) {
+        Message message = decode(data);
+        if (!type.isInstance(message)) {
+            throw new IllegalArgumentException("Expected " + type.getSimpleName() + " but got " + message);
+        }
+        return type.cast(message);
+    }
+
+    static void writeSettings(Out out, GameSettings s) {
+        out.writeVarint(s.numPlayers());
+        out.writeVarint(s.gridWidth());
+        out.writeVarint(s.gridHeight());
+        out.writeVarint(s.numColors());
+        out.writeVarint(s.tokensPerPlayer());
+        out.writeLong(Double.doubleToLongBits(s.betrayalProbability()));
+        out.writeVarint(s.maxBlockedTurns());
+        out.writeVarint(s.maxGameTurns());
+        out.writeVarint(s.turnDelayMs());
+        out.writeVarint(s.turnTimeoutMs());
+        // Flags: 1 simultaneousRounds, 2 tradeClearing, 4 exclusiveCells, 8 tradeRadius follows,
+        // 16 finishers follows, 32 sharedReputation
+        out.writeVarint((s.simultaneousRounds() ? 1 : 0) | (s.tradeClearing() ? 2 : 0) | (s.exclusiveCells() ? 4 : 0)
+                | (s.tradeRadius() > 0 ? 8 : 0) | (s.finishers() > 1 ? 16 : 0) | (s.sharedReputation() ? 32 : 0));
+        if (s.tradeRadius() > 0) out.writeVarint(s.tradeRadius());
+        if (s.finishers() > 1) out.writeVarint(s.finishers());
+    }
+
+    static void writeMemory(Out out, TradeMemory memory) {
+        Set<String> known = memory.players();
+        out.writeVarint(known.size());
+        for (String p : known) {
+            out.writeString(p);
+            out.writeVarint(memory.betrayals(p));
+            out.writeVarint(memory.honestTrades(p));
+            out.writeByte(memory.betrayedLastTime(p) ? 1 : 0);
+        }
+        Reputation r = memory.reputation();
+        writeScores(out, r.origin(), r.round(), r.changedSince(Integer.MIN_VALUE));
+    }
+
+    // A Reputation: origin, round and the raw scores by name
+    static void writeScores(Out out, int origin, int round, Map<String, Double> scores) {
+        out.writeVarint(origin);
+        out.writeVarint(round);
+        out.writeVarint(scores.size());
+        for (Map.Entry<String, Double> s : scores.entrySet()) {
+            out.writeString(s.getKey());
+            out.writeLong(Double.doubleToLongBits(s.getValue()));
+        }
+    }
+
+    static void writeRoute(Out out, PathPlanner.Route route) {
+        out.writeVarint(route.position() + 1);
+        out.writeVarint(route.cells().length);
+        for (int cell : route.cells()) out.writeVarint(cell);
+        out.writeInventory(route.expected());
+    }
+
+    static PathPlanner.Route readRoute(In in) {
+        int position = in.readVarint() - 1;
+        int[] cells = new int[in.readVarint()];
+        for (int i = 0; i < cells.length; i++) cells[i] = in.readVarint();
+        return new PathPlanner.Route(position, cells, in.readInventory());
+    }
+
+    static TradeMemory readMemory(In in) {
+        TradeMemory memory = new TradeMemory();
+        for (int n = in.readVarint(); n > 0; n--) {
+            memory.restore(in.readString(), in.readVarint(), in.readVarint(), in.readByte() != 0);
+        }
+        memory.restore(readReputation(in));
+        return memory;
+    }
+
+    static Reputation readReputation(In in) {
+        int origin = in.readVarint(), round = in.readVarint();
+        return Reputation.of(origin, round, readScores(in));
+    }
+
+    static Map<String, Double> readScores(In in) {
+        Map<String, Double> scores = new TreeMap<>();
+        for (int n = in.readVarint(); n > 0; n--) scores.put(in.readString(), Double.longBitsToDouble(in.readLong()));
+        return scores;
+    }
+
+    static GameSettings readSettings(In in) {
+        int n = in.readVarint(), w = in.readVarint(), h = in.readVarint(), colors = in.readVarint(), tokens = in.readVarint();
+        double betrayal = Double.longBitsToDouble(in.readLong());
+        int maxBlocked = in.readVarint(), maxTurns = in.readVarint(), delay = in.readVarint(), timeout = in.readVarint();
+        int flags = in.readVarint();
+        int radius = (flags & 8) != 0 ? in.readVarint() : 0;
+        int finishers = (flags & 16) != 0 ? in.readVarint() : 1;
+        return new GameSettings(n, w, h, colors, tokens, betrayal, maxBlocked, maxTurns, delay, timeout,
+                (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, radius, finishers, (flags & 32) != 0);
+    }
+
+    private static String tokensText(TokenInventory tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (TokenColor c : tokens.toList()) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // "Player1=1.0,Player2=-0.5"; Double.toString() reads back exactly
+    private static String scoresText(Map<String, Double> scores) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Double> s : scores.entrySet()) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(s.getKey()).append('=').append(s.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, Double> parseScores(String csv) {
+        Map<String, Double> scores = new TreeMap<>();
+        for (String entry : splitList(csv)) {
+            int eq = entry.lastIndexOf('=');
+            scores.put(entry.substring(0, eq), Double.parseDouble(entry.substring(eq + 1)));
+        }
+        return scores;
+    }
+
+    // One base-32 digit per cell, rows separated by '/'
+    private static String gridText(Grid grid) {
+        StringBuilder sb = new StringBuilder(grid.size() + grid.height());
+        for (int y = 0; y < grid.height(); y++) {
+            if (y > 0) sb.append('/');
+            for (int x = 0; x < grid.width(); x++) {
+                sb.append(Character.forDigit(grid.colorAt(x, y).ordinal(), TokenColor.COUNT));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Grid parseGrid(String text) {
+        String[] rows = text.split("/");
+        int width = rows[0].length();
+        byte[] cells = new byte[width * rows.length];
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < width; x++) {
+                cells[y * width + x] = (byte) Character.digit(rows[y].charAt(x), TokenColor.COUNT);
+            }
+        }
+        return Grid.of(width, rows.length, cells);
+    }
+
+    // Shared with GameJournal, which uses the same field encodings
+    static final class Out {
+        private byte[] buf;
+        private int pos;
+
+        Out(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarint(int v) {
+            if (v < 0) throw new IllegalArgumentException("Negative value " + v);
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) buf[pos++] = (byte) (v >>> shift);
+        }
+
+        void writeColor(TokenColor color) {
+            writeByte(color == null ? NO_COLOR : color.ordinal());
+        }
+
+        void writeInventory(TokenInventory tokens) {
+            int n = tokens.usedColors();
+            writeVarint(n);
+            for (int i = 0; i < n; i++) writeVarint(tokens.count(TokenColor.of(i)));
+        }
+
+        void writeGrid(Grid grid) {
+            writeVarint(grid.width());
+            writeVarint(grid.height());
+            byte[] cells = grid.toBytes();
+            ensure(cells.length);
+            System.arraycopy(cells, 0, buf, pos, cells.length);
+            pos += cells.length;
+        }
+
+        void writeString(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        int size() {
+            return pos;
+        }
+
+        void reset() {
+            pos = 0;
+        }
+    }
+
+    static final class In {
+        private final byte[] buf;
+        private final int limit;
+        private int pos;
+
+        In(byte[] buf) {
+            this(buf, buf.length);
+        }
+
+        // Read only the first length bytes of buf
+        In(byte[] buf, int length) {
+            this.buf = buf;
+            this.limit = length;
+        }
+
+        int readByte() {
+            if (pos >= limit) throw new IllegalArgumentException("Truncated message");
+            return buf[pos++] & 0xFF;
+        }
+
+        int readVarint() {
+            int v = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                v |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long readLong() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = (v << 8) | readByte();
+            return v;
+        }
+
+        TokenColor readColor() {
+            int code = readByte();
+            if (code == NO_COLOR) return null;
+            if (code >= TokenColor.COUNT) throw new IllegalArgumentException("Unknown token color " + code);
+            return TokenColor.of(code);
+        }
+
+        TokenInventory readInventory() {
+            int n = readVarint();
+            if (n > TokenColor.COUNT) throw new IllegalArgumentException("Too many token colors " + n);
+            TokenInventory tokens = new TokenInventory();
+            for (int i = 0; i < n; i++) tokens.give(TokenColor.of(i), readVarint());
+            return tokens;
+        }
+
+        Grid readGrid() {
+            int width = readVarint(), height = readVarint();
+            int n = width * height;
+            if (pos + n > limit) throw new IllegalArgumentException("Truncated message");
+            Grid grid = Grid.of(width, height, Arrays.copyOfRange(buf, pos, pos + n));
+            pos += n;
+            return grid;
+        }
+
+        String readString() {
+            int n = readVarint();
+            if (pos + n > limit) throw new IllegalArgumentException("Truncated message");
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+    }
+
+    // ---- Textual form (debugging) ----
+
+    /**
+     * Parse the pre-codec string content of a message. The conversation id
+     * tells the formats apart; "negotiation-reply" stands for the answer to a
+     * proposal.
+     */
+    public static Message fromText(String conversationId, String content) {
+        switch (conversationId) {
+            case "init": {
+                String[] parts = content.split(";");
+                String[] start = parts[0].split(",");
+                String[] goal = parts[1].split(",");
+                return new Init(Integer.parseInt(start[0]), Integer.parseInt(start[1]),
+                        Integer.parseInt(goal[0]), Integer.parseInt(goal[1]),
+                        parseTokens(parts[2]), splitList(parts[3]), GameSettings.fromMessage(parts[4]), parseGrid(parts[5]),
+                        Long.parseLong(parts[6]));
+            }
+            case "your-turn": {
+                String[] parts = content.split(";", -1);
+                return new TurnRequest(Integer.parseInt(parts[0]), parts.length > 1 ? splitList(parts[1]) : null);
+            }
+            case "turn-result": {
+                String[] data = content.split(";", -1);
+                TradeReport trade = null;
+                TradeOrder order = null;
+                for (int i = 4; i < data.length; i++) {
+                    String[] t = data[i].split(":", -1);
+                    if (t[0].equals("order")) {
+                        order = new TradeOrder(TokenColor.fromName(t[1]), parseTokens(t[2]));
+                    } else {
+                        trade = new TradeReport(t[0], TokenColor.fromName(t[1]), t[2].equals(NONE) ? null : TokenColor.fromName(t[2]),
+                                !t[3].equals("REJECTED"), t[3].equals("BETRAYED"));
+                    }
+                }
+                return new TurnResult(Integer.parseInt(data[0]), Integer.parseInt(data[1]),
+                        parseTokens(data[2]), !data[3].equalsIgnoreCase("BLOCKED"), trade, order);
+            }
+            case "negotiation": {
+                String[] parts = content.split(";");
+                String offer = parts[1].split(":")[1];
+                return new TradeProposal(TokenColor.fromName(parts[0].split(":")[1]),
+                        offer.equals(NONE) ? null : TokenColor.fromName(offer), Integer.parseInt(parts[2].split(":")[1]));
+            }
+            case "negotiation-reply":
+                return new TradeReply(content.equals(NONE) ? null : TokenColor.fromName(content));
+            case "trade-payment": {
+                String[] parts = content.split(";");
+                return new TradePayment(parts[0].equals(NONE) ? null : TokenColor.fromName(parts[0]), Integer.parseInt(parts[1]));
+            }
+            case "reputation-query":
+                return new ReputationQuery(Integer.parseInt(content));
+            case "reputation-scores": {
+                String[] parts = content.split(";", -1);
+                return new ReputationScores(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), parseScores(parts[2]));
+            }
+            case "lease":
+                return new Lease(content);
+            case "checkpoint":
+            case "restore": {
+                String[] parts = content.split(";", -1);
+                TradeMemory memory = new TradeMemory();
+                for (String entry : splitList(parts[3])) {
+                    String[] e = entry.split(":");
+                    memory.restore(e[0], Integer.parseInt(e[1]), Integer.parseInt(e[2]), e[3].equals("LAST"));
+                }
+                memory.restore(Reputation.of(Integer.parseInt(parts[7]), Integer.parseInt(parts[8]), parseScores(parts[9])));
+                List<String> cells = splitList(parts[5]);
+                int[] route = new int[cells.size()];
+                for (int i = 0; i < route.length; i++) route[i] = Integer.parseInt(cells.get(i));
+                return new AgentState(parts[0], Integer.parseInt(parts[1]), Long.parseLong(parts[2]), memory,
+                        new PathPlanner.Route(Integer.parseInt(parts[4]), route, parseTokens(parts[6])));
+            }
+            default:
+                throw new IllegalArgumentException("Unknown conversation '" + conversationId + "'");
+        }
+    }
+
+    private static TokenInventory parseTokens(String csv) {
+        TokenInventory tokens = new TokenInventory();
+        if (!csv.isEmpty()) {
+            for (String name : csv.split(",")) tokens.give(TokenColor.fromName(name));
+        }
+        return tokens;
+    }
+
+    private static List<String> splitList(String csv) {
+        return csv.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(csv.split(",")));
+    }
+}
@@ -0,0 +1,159 @@
+package gridgame;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * The built-in NegotiationStrategies, looked up by name with byName().
+ */
+public final class NegotiationStrategies {
+
+    /**
+     * The original rules (TradeRules): ask the player with the fewest
+     * betrayals, offer the most plentiful token, reject players who
+     * betrayed too often and betray with the game's betrayal probability.
+     */
+    public static final NegotiationStrategy DEFAULT = new Standard("default") {
+        @Override
+        public boolean pays(String partner, TradeMemory memory, double betrayalProbability, RandomGenerator random) {
+            return random.nextDouble() > betrayalProbability;
+        }
+    };
+
+    // Never betrays and gives whatever it can spare
+    public static final NegotiationStrategy HONEST = new Standard("honest") {
+        @Override
+        public boolean accepts(String proposer, TokenColor need, TokenInventory tokens, TradeMemory memory) {
+            return tokens.has(need);
+        }
+
+        @Override
+        public boolean pays(String partner, TradeMemory memory, double betrayalProbability, RandomGenerator random) {
+            return true;
+        }
+    };
+
+    /**
+     * Does to a partner what it did last time: honest with everyone who
+     * has not betrayed it, refuses and betrays those whose last trade was a
+     * betrayal, until they pay again.
+     */
+    public static final NegotiationStrategy TIT_FOR_TAT = new Standard("tit-for-tat") {
+        @Override
+        public String choosePartner(List<String> candidates, TradeMemory memory) {
+            for (String candidate : candidates) {
+                if (!memory.betrayedLastTime(candidate)) return candidate;
+            }
+            return super.choosePartner(candidates, memory);
+        }
+
+        @Override
+        public boolean accepts(String proposer, TokenColor need, TokenInventory tokens, TradeMemory memory) {
+            return !memory.betrayedLastTime(proposer) && tokens.has(need);
+        }
+
+        @Override
+        public boolean pays(String partner, TradeMemory memory, double betrayalProbability, RandomGenerator random) {
+            return !memory.betrayedLastTime(partner);
+        }
+    };
+
+    /**
+     * Trusts by track record: TradeMemory.trust(), which forgets slowly and,
+     * with sharedReputation, includes what everyone else went through. It
+     * asks the most trusted player, only deals with players at 0.5 (strangers)
+     * or better, and betrays with the game's probability scaled by distrust
+     * (twice as often as DEFAULT with the worst partners, never with perfect
+     * ones).
+     */
+    public static final NegotiationStrategy REPUTATION = new Standard("reputation") {
+        @Override
+        public String choosePartner(List<String> candidates, TradeMemory memory) {
+            return memory.mostTrusted(candidates);
+        }
+
+        @Override
+        public boolean accepts(String proposer, TokenColor need, TokenInventory tokens, TradeMemory memory) {
+            return memory.trust(proposer) >= 0.5 && tokens.has(need);
+        }
+
+        @Override
+        public boolean pays(String partner, TradeMemory memory, double betrayalProbability, RandomGenerator random) {
+            return random.nextDouble() >= betrayalProbability * 2 * (1 - memory.trust(partner));
+        }
+    };
+
+    // Takes and never pays; only gives a token it holds twice
+    public static final NegotiationStrategy GREEDY = new Standard("greedy") {
+        @Override
+        public boolean accepts(String proposer, TokenColor need, TokenInventory tokens, TradeMemory memory) {
+            return memory.betrayals(proposer) < TradeRules.MAX_TOLERATED_BETRAYALS && tokens.count(need) > 1;
+        }
+
+        @Override
+        public boolean pays(String partner, TradeMemory memory, double betrayalProbability, RandomGenerator random) {
+            return false;
+        }
+    };
+
+    private static final List<NegotiationStrategy> ALL = List.of(DEFAULT, TIT_FOR_TAT, HONEST, REPUTATION, GREEDY);
+
+    private NegotiationStrategies() {
+    }
+
+    public static List<NegotiationStrategy> all() {
+        return ALL;
+    }
+
+    public static NegotiationStrategy byName(String name) {
+        String key = name.trim().toLowerCase(Locale.ROOT);
+        for (NegotiationStrategy strategy : ALL) {
+            if (strategy.name().equals(key)) return strategy;
+        }
+        throw new IllegalArgumentException("Unknown strategy " + name + ", expected one of " + names());
+    }
+
+    // Comma-separated names, e.g. "default,greedy"
+    public static List<NegotiationStrategy> parse(String csv) {
+        return java.util.Arrays.stream(csv.split(",")).map(NegotiationStrategies::byName).toList();
+    }
+
+    public static List<String> names() {
+        return ALL.stream().map(NegotiationStrategy::name).toList();
+    }
+
+    // TradeRules for partner, offer and acceptance; subclasses decide the rest
+    private abstract static class Standard implements NegotiationStrategy {
+        private final String name;
+
+        Standard(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String choosePartner(List<String> candidates, TradeMemory memory) {
+            return TradeRules.selectPlayerToTrade(candidates, memory.betrayalCounts());
+        }
+
+        @Override
+        public TokenColor chooseOffer(TokenInventory tokens, TokenColor need) {
+            return TradeRules.selectOfferToken(tokens);
+        }
+
+        @Override
+        public boolean accepts(String proposer, TokenColor need, TokenInventory tokens, TradeMemory memory) {
+            return TradeRules.acceptsProposal(memory.betrayals(proposer), tokens, need);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package gridgame;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * How a player trades: whom it asks when blocked, what it offers, which
+ * proposals it accepts and whether it pays after an accepted trade.
+ *
+ * Strategies hold no state of their own (everything a player learned is in
+ * its TradeMemory), so one instance serves every player and thread. PlayerAgent
+ * and the headless GameEngine call the same methods; see NegotiationStrategies
+ * for the built-in ones.
+ */
+public interface NegotiationStrategy {
+
+    // Name used in agent arguments and on the command line
+    String name();
+
+    // The player to propose a trade to; candidates is never empty
+    String choosePartner(List<String> candidates, TradeMemory memory);
+
+    // The token to offer for need, or null to offer nothing
+    TokenColor chooseOffer(TokenInventory tokens, TokenColor need);
+
+    // Whether to give need to proposer
+    boolean accepts(String proposer, TokenColor need, TokenInventory tokens, TradeMemory memory);
+
+    // Whether to pay partner the offered token after it accepted, or betray it
+    boolean pays(String partner, TradeMemory memory, double betrayalProbability, RandomGenerator random);
+}
@@ -0,0 +1,284 @@
+package gridgame;
+
+import java.util.Arrays;
+
+/**
+ * Plans a player's route to its goal with A* over the grid, treating the
+ * token inventory as a budget: entering a cell costs one step, plus a trade
+ * penalty when the player is expected to run out of that cell's color.
+ *
+ * The penalties are refined over a few rounds (a cheap Lagrangian
+ * relaxation of the resource constraint): after each search, the colors the
+ * path needs more of than the player holds get more expensive, and the best
+ * route seen so far is kept. Routes therefore prefer colors the player can
+ * pay for, and detour only when that is shorter than trading.
+ *
+ * One planner belongs to one player. The route is cached and reused while
+ * the player follows it with the expected tokens; it is only recomputed when
+ * the position or the inventory diverges from the plan.
+ */
+public class PathPlanner {
+
+    // Extra cost of entering a cell whose color has to be traded for
+    static final int TRADE_COST = 4;
+    // Penalty refinement rounds per plan
+    private static final int MAX_ROUNDS = 4;
+
+    private final Grid grid;
+    private final int goal;
+
+    // Cached route: cell indices after the start, ending at the goal
+    private int[] path = new int[0];
+    private int pathLength = 0;
+    private int pathPos = 0;                // path[pathPos] is the next cell to enter
+    private int position = -1;              // where the player is expected to be
+    private final int[] expected = new int[TokenColor.COUNT]; // tokens expected at that position
+
+    private int replans = 0;
+
+    public PathPlanner(Grid grid, int goalX, int goalY) {
+        this.grid = grid;
+        this.goal = grid.index(goalX, goalY);
+    }
+
+    /**
+     * The cell index of the next step from (x, y) towards the goal given the
+     * current tokens, or the current cell when already at the goal.
+     */
+    public int nextStep(int x, int y, TokenInventory tokens) {
+        int here = grid.index(x, y);
+        if (here == goal) return here;
+
+        if (here != position && pathPos < pathLength && here == path[pathPos]) {
+            // The player took the planned step and paid for it
+            expected[grid.ordinalAt(here)]--;
+            position = here;
+            pathPos++;
+        }
+        if (here != position || pathPos >= pathLength || !matchesExpected(tokens)) {
+            plan(here, tokens);
+        }
+        return path[pathPos];
+    }
+
+    // Number of times a route had to be computed from scratch
+    public int replans() {
+        return replans;
+    }
+
+    /**
+     * A cached route, for snapshots: the cell it was confirmed at (-1 for
+     * none), the cells still ahead and the tokens the player was expected to
+     * hold there. A planner resumed from it plans exactly as the original.
+     */
+    public record Route(int position, int[] cells, TokenInventory expected) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Route r && position == r.position && Arrays.equals(cells, r.cells)
+                    && expected.equals(r.expected);
+        }
+
+        @Override
+        public int hashCode() {
+            return position * 31 + Arrays.hashCode(cells);
+        }
+    }
+
+    public Route route() {
+        TokenInventory tokens = new TokenInventory();
+        for (int c = 0; c < expected.length; c++) tokens.give(TokenColor.of(c), expected[c]);
+        return new Route(position, Arrays.copyOfRange(path, pathPos, pathLength), tokens);
+    }
+
+    public void resume(Route route) {
+        path = route.cells().clone();
+        pathLength = path.length;
+        pathPos = 0;
+        position = route.position();
+        for (int c = 0; c < expected.length; c++) expected[c] = route.expected().count(TokenColor.of(c));
+    }
+
+    private boolean matchesExpected(TokenInventory tokens) {
+        for (int c = 0; c < expected.length; c++) {
+            if (expected[c] != tokens.count(TokenColor.of(c))) return false;
+        }
+        return true;
+    }
+
+    private void plan(int start, TokenInventory tokens) {
+        replans++;
+        Search search = Search.forGrid(grid);
+
+        // Only colors that appear on the board matter for the route
+        int numColors = grid.numColors();
+        int[] counts = new int[numColors];
+        int[] penalty = new int[numColors];
+        int held = 0;
+        for (int c = 0; c < numColors; c++) {
+            counts[c] = tokens.count(TokenColor.of(c));
+            penalty[c] = counts[c] > 0 ? 0 : TRADE_COST;
+            held += counts[c];
+        }
+
+        int[] demand = new int[numColors];
+        int bestScore = Integer.MAX_VALUE;
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            int length = search.run(grid, start, goal, penalty);
+
+            Arrays.fill(demand, 0);
+            for (int i = 0; i < length; i++) demand[grid.ordinalAt(search.path[i])]++;
+
+            int deficit = 0;
+            for (int c = 0; c < demand.length; c++) deficit += Math.max(0, demand[c] - counts[c]);
+
+            int score = length + TRADE_COST * deficit;
+            if (score < bestScore) {
+                bestScore = score;
+                if (path.length < length) path = new int[Math.max(length, path.length * 2)];
+                System.arraycopy(search.path, 0, path, 0, length);
+                pathLength = length;
+            }
+            // Stop once no mix of colors could do better on a route this long
+            if (deficit <= Math.max(0, length - held)) break;
+
+            // Make the colors we are short of more expensive and search again
+            for (int c = 0; c < demand.length; c++) {
+                if (demand[c] > counts[c]) penalty[c] += TRADE_COST;
+            }
+        }
+
+        position = start;
+        pathPos = 0;
+        for (int c = 0; c < expected.length; c++) expected[c] = tokens.count(TokenColor.of(c));
+    }
+
+    /**
+     * Scratch arrays for one A* search, reused across searches on the same
+     * thread. Visited/closed marks are stamped with the search number so
+     * nothing has to be cleared between runs.
+     */
+    private static final class Search {
+        private static final ThreadLocal<Search> LOCAL = ThreadLocal.withInitial(Search::new);
+
+        private int[] cost = new int[0];
+        private int[] cameFrom = new int[0];
+        private int[] seen = new int[0];      // == stamp: cost/cameFrom are valid
+        private int[] closed = new int[0];    // == stamp: expanded
+        private int stamp = 0;
+        private int stepCost = 1;
+
+        private long[] heapKeys = new long[64];
+        private int[] heapCells = new int[64];
+        private int heapSize;
+
+        int[] path = new int[64];
+
+        static Search forGrid(Grid grid) {
+            Search s = LOCAL.get();
+            if (s.cost.length < grid.size()) {
+                int n = grid.size();
+                s.cost = new int[n];
+                s.cameFrom = new int[n];
+                s.seen = new int[n];
+                s.closed = new int[n];
+                s.stamp = 0;
+            }
+            return s;
+        }
+
+        // Runs A* and leaves the route (excluding start) in path; returns its length
+        int run(Grid grid, int start, int goal, int[] penalty) {
+            if (++stamp == 0) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+            int width = grid.width(), height = grid.height();
+            int goalX = goal % width, goalY = goal / width;
+
+            // Every step costs at least this much, which keeps the heuristic admissible
+            int minStep = Integer.MAX_VALUE;
+            for (int p : penalty) minStep = Math.min(minStep, 1 + p);
+            stepCost = minStep;
+
+            heapSize = 0;
+            cost[start] = 0;
+            cameFrom[start] = -1;
+            seen[start] = stamp;
+            push(start, heuristic(start, width, goalX, goalY), heuristic(start, width, goalX, goalY));
+
+            while (heapSize > 0) {
+                int cell = pop();
+                if (closed[cell] == stamp) continue;
+                closed[cell] = stamp;
+                if (cell == goal) break;
+
+                int x = cell % width, y = cell / width;
+                if (x > 0) relax(grid, cell, cell - 1, width, goalX, goalY, penalty);
+                if (x < width - 1) relax(grid, cell, cell + 1, width, goalX, goalY, penalty);
+                if (y > 0) relax(grid, cell, cell - width, width, goalX, goalY, penalty);
+                if (y < height - 1) relax(grid, cell, cell + width, width, goalX, goalY, penalty);
+            }
+
+            int length = 0;
+            for (int c = goal; c != start; c = cameFrom[c]) length++;
+            if (path.length < length) path = new int[Math.max(length, path.length * 2)];
+            int i = length;
+            for (int c = goal; c != start; c = cameFrom[c]) path[--i] = c;
+            return length;
+        }
+
+        private void relax(Grid grid, int from, int to, int width, int goalX, int goalY, int[] penalty) {
+            if (closed[to] == stamp) return;
+            int g = cost[from] + 1 + penalty[grid.ordinalAt(to)];
+            if (seen[to] == stamp && cost[to] <= g) return;
+            seen[to] = stamp;
+            cost[to] = g;
+            cameFrom[to] = from;
+            int h = heuristic(to, width, goalX, goalY);
+            push(to, g + h, h);
+        }
+
+        private int heuristic(int cell, int width, int goalX, int goalY) {
+            return stepCost * (Math.abs(cell % width - goalX) + Math.abs(cell / width - goalY));
+        }
+
+        // Min-heap on (f, h): ties go to the cell closer to the goal
+        private void push(int cell, int f, int h) {
+            if (heapSize == heapKeys.length) {
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+                heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+            }
+            long key = ((long) f << 32) | h;
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heapKeys[parent] <= key) break;
+                heapKeys[i] = heapKeys[parent];
+                heapCells[i] = heapCells[parent];
+                i = parent;
+            }
+            heapKeys[i] = key;
+            heapCells[i] = cell;
+        }
+
+        private int pop() {
+            int top = heapCells[0];
+            long key = heapKeys[--heapSize];
+            int cell = heapCells[heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) child++;
+                if (key <= heapKeys[child]) break;
+                heapKeys[i] = heapKeys[child];
+                heapCells[i] = heapCells[child];
+                i = child;
+            }
+            heapKeys[i] = key;
+            heapCells[i] = cell;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package gridgame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Time-decayed trade records: a player's score goes up by one for every
+ * betrayal and down by one for every honest payment, and halves every
+ * HALF_LIFE rounds, so old deeds are forgiven. A player's trust is
+ * 1 / (1 + 2^score): 0.5 for strangers, 1/3 after one betrayal, 2/3 after
+ * one honest trade.
+ *
+ * Scores are kept in units of the origin round, where a deed at round r
+ * weighs 2^((r - origin) / HALF_LIFE); all scores decay alike, so their
+ * order never changes between deeds. The players with a record are kept in
+ * that order, and mostTrusted() walks it instead of sorting on every
+ * blocked turn.
+ *
+ * Every player keeps one in its TradeMemory; with sharedReputation MainAgent
+ * (or GameEngine) keeps one for the whole game, the reputation board.
+ */
+public final class Reputation {
+
+    // Rounds after which a deed counts half
+    public static final int HALF_LIFE = GameConfig.REPUTATION_HALF_LIFE;
+
+    // Weights are rebased before 2^(rounds / HALF_LIFE) gets anywhere near overflowing
+    private static final int MAX_SPAN = 256 * HALF_LIFE;
+
+    // Candidate lists shorter than this are scanned instead of walking the order
+    private static final int SCAN_LIMIT = 16;
+
+    private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingDouble(e -> e.score).thenComparing(e -> e.player);
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);  // entries with a score other than 0
+    private int origin;   // round of weight 1
+    private int round;    // latest round seen
+
+    // Marks the candidates of the current mostTrusted() call (Entry.seen == stamp)
+    private int stamp;
+
+    private static final class Entry {
+        final String player;
+        double score;
+        int updated;   // round of the last change, for changedSince()
+        int seen;      // stamp of the last mostTrusted() call that had this player as a candidate
+
+        Entry(String player) {
+            this.player = player;
+        }
+    }
+
+    public Reputation() {
+    }
+
+    public Reputation(Reputation other) {
+        origin = other.origin;
+        round = other.round;
+        for (Entry e : other.entries.values()) set(e.player, e.score, e.updated);
+    }
+
+    /**
+     * The round a turn belongs to: the turn itself in simultaneous rounds,
+     * otherwise one round per numPlayers turns.
+     */
+    public static int roundOf(GameSettings settings, int turn) {
+        return settings.simultaneousRounds() ? turn : (turn + settings.numPlayers() - 1) / settings.numPlayers();
+    }
+
+    public void betrayal(String player, int round) {
+        add(player, 1, round);
+    }
+
+    public void honest(String player, int round) {
+        add(player, -1, round);
+    }
+
+    private void add(String player, int sign, int round) {
+        advance(round);
+        Entry e = entries.get(player);
+        double score = e == null ? 0 : e.score;
+        set(player, score + sign * Math.pow(2, (double) (this.round - origin) / HALF_LIFE), this.round);
+    }
+
+    // Move the clock on (it never goes back)
+    public void advance(int round) {
+        if (round <= this.round) return;
+        this.round = round;
+        if (round - origin > MAX_SPAN) rebase(round);
+    }
+
+    // Express every score in units of round, keeping their order
+    private void rebase(int newOrigin) {
+        double factor = Math.pow(2, -(double) (newOrigin - origin) / HALF_LIFE);
+        origin = newOrigin;
+        List<Entry> all = new ArrayList<>(entries.values());
+        entries.clear();
+        ranking.clear();
+        for (Entry e : all) set(e.player, e.score * factor, e.updated);
+    }
+
+    private void set(String player, double score, int updated) {
+        Entry e = entries.get(player);
+        if (e == null) {
+            e = new Entry(player);
+            entries.put(player, e);
+        } else if (e.score != 0) {
+            ranking.remove(e);
+        }
+        e.score = score;
+        e.updated = updated;
+        if (score != 0) ranking.add(e);
+    }
+
+    // The score now; positive for more betrayals than honest trades lately
+    public double score(String player) {
+        Entry e = entries.get(player);
+        return e == null ? 0 : e.score * Math.pow(2, -(double) (round - origin) / HALF_LIFE);
+    }
+
+    public double trust(String player) {
+        return 1 / (1 + Math.pow(2, score(player)));
+    }
+
+    /**
+     * The candidate with the lowest score; among equals the first in list
+     * order for players without a record, by name otherwise. Long lists
+     * (a player's list of everyone else) are marked in one pass and found in
+     * the kept order, which stays O(log n) per deed.
+     */
+    public String mostTrusted(List<String> candidates) {
+        if (candidates.size() < SCAN_LIMIT) return scan(candidates);
+        if (++stamp == 0) {
+            for (Entry e : entries.values()) e.seen = 0;
+            stamp = 1;
+        }
+        String firstStranger = null;
+        for (String candidate : candidates) {
+            Entry e = entries.get(candidate);
+            if (e != null && e.score != 0) e.seen = stamp;
+            else if (firstStranger == null) firstStranger = candidate;
+        }
+
+        // Players with a good record first, then the first one without, then the least bad
+        for (Entry e : ranking) {
+            if (e.score > 0 && firstStranger != null) return firstStranger;
+            if (e.seen == stamp) return e.player;
+        }
+        return firstStranger;
+    }
+
+    private String scan(List<String> candidates) {
+        String firstStranger = null;
+        Entry best = null;
+        for (String candidate : candidates) {
+            Entry e = entries.get(candidate);
+            if (e == null || e.score == 0) {
+                if (firstStranger == null) firstStranger = candidate;
+            } else if (best == null || ORDER.compare(e, best) < 0) {
+                best = e;
+            }
+        }
+        if (best != null && (best.score < 0 || firstStranger == null)) return best.player;
+        return firstStranger;
+    }
+
+    /**
+     * Raw scores (in units of origin()) of the players changed in round
+     * since or later, for a copy to catch up with set(); by name.
+     */
+    public Map<String, Double> changedSince(int since) {
+        Map<String, Double> changed = new TreeMap<>();
+        for (Entry e : entries.values()) {
+            if (e.updated >= since) changed.put(e.player, e.score);
+        }
+        return changed;
+    }
+
+    /**
+     * Take over raw scores from another Reputation (changedSince() with its
+     * origin() and round()), converted to our origin when they differ.
+     */
+    public void update(int origin, int round, Map<String, Double> scores) {
+        if (origin > this.origin) rebase(origin);
+        advance(round);
+        double factor = Math.pow(2, -(double) (this.origin - origin) / HALF_LIFE);
+        for (Map.Entry<String, Double> s : scores.entrySet()) set(s.getKey(), s.getValue() * factor, round);
+    }
+
+    public int origin() {
+        return origin;
+    }
+
+    public int round() {
+        return round;
+    }
+
+    // Everyone with a record, by name
+    public Set<String> players() {
+        return Collections.unmodifiableSet(new TreeSet<>(entries.keySet()));
+    }
+
+    // A copy with players renamed (names missing from the map stay)
+    public Reputation renamed(Map<String, String> names) {
+        Reputation copy = new Reputation();
+        copy.origin = origin;
+        copy.round = round;
+        for (Entry e : entries.values()) copy.set(names.getOrDefault(e.player, e.player), e.score, e.updated);
+        return copy;
+    }
+
+    // Restore a saved one: its origin, round and raw scores
+    public static Reputation of(int origin, int round, Map<String, Double> scores) {
+        Reputation r = new Reputation();
+        r.origin = origin;
+        r.round = round;
+        for (Map.Entry<String, Double> s : scores.entrySet()) r.set(s.getKey(), s.getValue(), round);
+        return r;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Reputation r && origin == r.origin && round == r.round
+                && changedSince(Integer.MIN_VALUE).equals(r.changedSince(Integer.MIN_VALUE));
+    }
+
+    @Override
+    public int hashCode() {
+        return changedSince(Integer.MIN_VALUE).hashCode() * 31 + round;
+    }
+}
@@ -0,0 +1,57 @@
+package gridgame;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Conflict rules for simultaneous rounds, shared by MainAgent and the
+ * headless GameEngine so both resolve a round the same way.
+ *
+ * Every player picks its move from the same board state. Priority rotates
+ * with the round number, so no seat is always first: in round r (from 1) the
+ * player at index (r - 1) % n goes first, then the following ones in order.
+ * At most one player may enter a given cell per round, and it is the first
+ * one in priority order; the others stay where they are and keep their
+ * token. Trades and wins are settled in the same order. With exclusiveCells
+ * a cell someone stands on at the start of the round cannot be entered at
+ * all, even if that player leaves it in the same round.
+ */
+public final class RoundRules {
+
+    private RoundRules() {
+    }
+
+    /**
+     * Player indexes in priority order for the given round.
+     */
+    public static int[] priorityOrder(int players, int round) {
+        int[] order = new int[players];
+        int first = Math.floorMod(round - 1, players);
+        for (int i = 0; i < players; i++) {
+            order[i] = (first + i) % players;
+        }
+        return order;
+    }
+
+    /**
+     * Decide which moves go ahead. targets[i] is the cell index player i
+     * wants to enter this round, or -1 when it is not moving. Returns
+     * granted[i], true when player i may move.
+     */
+    public static boolean[] resolveMoves(int[] targets, int round) {
+        return resolveMoves(targets, round, cell -> false);
+    }
+
+    // The same, refusing every move into a cell for which occupied is true
+    public static boolean[] resolveMoves(int[] targets, int round, IntPredicate occupied) {
+        boolean[] granted = new boolean[targets.length];
+        Set<Integer> claimed = new HashSet<>();
+        for (int i : priorityOrder(targets.length, round)) {
+            if (targets[i] >= 0 && !occupied.test(targets[i]) && claimed.add(targets[i])) {
+                granted[i] = true;
+            }
+        }
+        return granted;
+    }
+}
@@ -0,0 +1,131 @@
+package gridgame;
+
+import java.util.Arrays;
+
+/**
+ * Where the players are: an occupancy count per cell, and the players of
+ * every square bucket of BUCKET x BUCKET cells. Occupancy checks and moves
+ * are O(1); radius queries only look at the buckets around the player, so
+ * they stay cheap with thousands of players on a big board. Distances are Manhattan distances, as players walk.
+ *
+ * Players are identified by seat. MainAgent and the headless GameEngine keep
+ * one index per game, for the exclusiveCells and tradeRadius settings.
+ */
+public final class SpatialIndex {
+
+    // Bucket side in cells
+    static final int BUCKET = 8;
+
+    private final int width, height;
+    private final int bucketsX, bucketsY;
+    private final int[] occupants;      // players per cell
+    private final int[] cellOf;         // seat -> cell, -1 when not placed
+    private final int[][] buckets;      // seats per bucket, the first bucketSize[b] used
+    private final int[] bucketSize;
+    private final int[] slot;           // seat -> index in its bucket
+
+    public SpatialIndex(int width, int height, int players) {
+        this.width = width;
+        this.height = height;
+        this.bucketsX = (width + BUCKET - 1) / BUCKET;
+        this.bucketsY = (height + BUCKET - 1) / BUCKET;
+        this.occupants = new int[width * height];
+        this.cellOf = new int[players];
+        this.buckets = new int[bucketsX * bucketsY][];
+        this.bucketSize = new int[buckets.length];
+        this.slot = new int[players];
+        Arrays.fill(cellOf, -1);
+    }
+
+    // Put the player on cell, or move it there
+    public void place(int seat, int cell) {
+        int from = cellOf[seat];
+        if (from == cell) return;
+        if (from >= 0) {
+            occupants[from]--;
+            int b = bucketOf(from), c = bucketOf(cell);
+            if (b != c) {
+                removeFromBucket(seat, b);
+                addToBucket(seat, c);
+            }
+        } else {
+            addToBucket(seat, bucketOf(cell));
+        }
+        occupants[cell]++;
+        cellOf[seat] = cell;
+    }
+
+    public int cellOf(int seat) {
+        return cellOf[seat];
+    }
+
+    public boolean occupied(int cell) {
+        return occupants[cell] > 0;
+    }
+
+    // Steps between two players
+    public int distance(int seat, int other) {
+        return distanceOfCells(cellOf[seat], cellOf[other]);
+    }
+
+    /**
+     * The other players at most radius steps away from the player, nearest
+     * first (ties by seat).
+     */
+    public int[] within(int seat, int radius) {
+        int cell = cellOf[seat];
+        int x = cell % width, y = cell / width;
+        int bx0 = Math.max(0, x - radius) / BUCKET, bx1 = (int) Math.min(width - 1L, (long) x + radius) / BUCKET;
+        int by0 = Math.max(0, y - radius) / BUCKET, by1 = (int) Math.min(height - 1L, (long) y + radius) / BUCKET;
+
+        long[] found = new long[8];
+        int n = 0;
+        for (int by = by0; by <= by1; by++) {
+            for (int bx = bx0; bx <= bx1; bx++) {
+                int b = by * bucketsX + bx;
+                for (int i = 0; i < bucketSize[b]; i++) {
+                    int other = buckets[b][i];
+                    int d = distanceOfCells(cell, cellOf[other]);
+                    if (other == seat || d > radius) continue;
+                    if (n == found.length) found = Arrays.copyOf(found, n * 2);
+                    found[n++] = key(d, other);
+                }
+            }
+        }
+        return seats(found, n);
+    }
+
+    private int distanceOfCells(int a, int b) {
+        return Math.abs(a % width - b % width) + Math.abs(a / width - b / width);
+    }
+
+    private int bucketOf(int cell) {
+        return (cell / width / BUCKET) * bucketsX + (cell % width) / BUCKET;
+    }
+
+    private void addToBucket(int seat, int b) {
+        if (buckets[b] == null) buckets[b] = new int[4];
+        if (bucketSize[b] == buckets[b].length) buckets[b] = Arrays.copyOf(buckets[b], bucketSize[b] * 2);
+        slot[seat] = bucketSize[b];
+        buckets[b][bucketSize[b]++] = seat;
+    }
+
+    // Swap the last player of the bucket into the removed one's slot
+    private void removeFromBucket(int seat, int b) {
+        int last = buckets[b][--bucketSize[b]];
+        buckets[b][slot[seat]] = last;
+        slot[last] = slot[seat];
+    }
+
+    // Sorts by distance, then seat
+    private static long key(int distance, int seat) {
+        return ((long) distance << 32) | seat;
+    }
+
+    private static int[] seats(long[] found, int n) {
+        Arrays.sort(found, 0, n);
+        int[] seats = new int[n];
+        for (int i = 0; i < seats.length; i++) seats[i] = (int) found[i];
+        return seats;
+    }
+}
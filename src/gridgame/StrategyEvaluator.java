@@ -0,0 +1,223 @@
+package gridgame;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ranks NegotiationStrategies by playing them against each other in
+ * headless games. Every pair of strategies is a matchup: its games seat the
+ * two strategies alternately around the table, and which one takes the
+ * first seat alternates from game to game, so neither profits from moving
+ * first. Games are split into batches on a ForkJoinPool like
+ * TournamentRunner's.
+ */
+public class StrategyEvaluator {
+
+    // Games played by one task before it stops splitting
+    private static final int BATCH_SIZE = 512;
+
+    private final ForkJoinPool pool;
+
+    public StrategyEvaluator(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Play gamesPerMatchup games for every pair of strategies. Game i of
+     * matchup m uses seed baseSeed + m * gamesPerMatchup + i.
+     */
+    public List<Matchup> run(GameSettings settings, List<NegotiationStrategy> strategies, int gamesPerMatchup, long baseSeed) {
+        List<Matchup> matchups = new ArrayList<>();
+        for (int a = 0; a < strategies.size(); a++) {
+            for (int b = a + 1; b < strategies.size(); b++) {
+                matchups.add(new Matchup(strategies.get(a), strategies.get(b)));
+            }
+        }
+
+        List<MatchBatch> tasks = new ArrayList<>(matchups.size());
+        for (int m = 0; m < matchups.size(); m++) {
+            tasks.add(new MatchBatch(settings, matchups.get(m), baseSeed + (long) m * gamesPerMatchup, 0, gamesPerMatchup));
+        }
+        for (MatchBatch task : tasks) pool.execute(task);
+        for (MatchBatch task : tasks) task.join();
+        return matchups;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static class MatchBatch extends RecursiveAction {
+        private final GameSettings settings;
+        private final Matchup matchup;
+        private final long firstSeed;
+        private final int from, to;
+
+        MatchBatch(GameSettings settings, Matchup matchup, long firstSeed, int from, int to) {
+            this.settings = settings;
+            this.matchup = matchup;
+            this.firstSeed = firstSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new MatchBatch(settings, matchup, firstSeed, from, mid),
+                          new MatchBatch(settings, matchup, firstSeed, mid, to));
+                return;
+            }
+
+            List<NegotiationStrategy> aFirst = List.of(matchup.a, matchup.b);
+            List<NegotiationStrategy> bFirst = List.of(matchup.b, matchup.a);
+            // Index 0 counts for a, 1 for b
+            long[] wins = new long[2], betrayals = new long[2], tradesAccepted = new long[2];
+            long turns = 0;
+
+            for (int i = from; i < to; i++) {
+                int first = i & 1;
+                GameResult result = new GameEngine(settings, firstSeed + i, first == 0 ? aFirst : bFirst).run();
+                turns += result.turns();
+                List<GameResult.PlayerStats> players = result.players();
+                for (int seat = 0; seat < players.size(); seat++) {
+                    GameResult.PlayerStats p = players.get(seat);
+                    int side = (seat + first) & 1;
+                    // Only the first arrival wins: with finishers > 1 several seats reach their goals
+                    if (p.rank() == 1) wins[side]++;
+                    betrayals[side] += p.betrayals();
+                    tradesAccepted[side] += p.tradesAccepted();
+                }
+            }
+
+            matchup.add(to - from, wins, betrayals, tradesAccepted, turns);
+        }
+    }
+
+    /**
+     * Aggregated outcomes of the games between strategies a and b.
+     */
+    public static class Matchup {
+        private final NegotiationStrategy a, b;
+        private final LongAdder games = new LongAdder();
+        private final LongAdder totalTurns = new LongAdder();
+        private final LongAdder[] wins = { new LongAdder(), new LongAdder() };
+        private final LongAdder[] betrayals = { new LongAdder(), new LongAdder() };
+        private final LongAdder[] tradesAccepted = { new LongAdder(), new LongAdder() };
+
+        Matchup(NegotiationStrategy a, NegotiationStrategy b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        // Flush one batch's local counts
+        void add(long batchGames, long[] batchWins, long[] batchBetrayals, long[] batchTrades, long turns) {
+            games.add(batchGames);
+            totalTurns.add(turns);
+            for (int side = 0; side < 2; side++) {
+                wins[side].add(batchWins[side]);
+                betrayals[side].add(batchBetrayals[side]);
+                tradesAccepted[side].add(batchTrades[side]);
+            }
+        }
+
+        public NegotiationStrategy a() { return a; }
+        public NegotiationStrategy b() { return b; }
+        public long games() { return games.sum(); }
+        public long winsA() { return wins[0].sum(); }
+        public long winsB() { return wins[1].sum(); }
+        public long undecided() { return games() - winsA() - winsB(); }
+
+        public double meanTurns() {
+            long n = games();
+            return n == 0 ? 0 : (double) totalTurns.sum() / n;
+        }
+
+        // Per game, for the side playing strategy s
+        public double betrayalsPerGame(NegotiationStrategy s) { return perGame(betrayals[s == a ? 0 : 1]); }
+        public double tradesPerGame(NegotiationStrategy s) { return perGame(tradesAccepted[s == a ? 0 : 1]); }
+
+        private double perGame(LongAdder counter) {
+            long n = games();
+            return n == 0 ? 0 : (double) counter.sum() / n;
+        }
+    }
+
+    /**
+     * Points per strategy over all its matchups: 1 per win, 0.5 per game
+     * nobody won, divided by the games it played.
+     */
+    public static Map<NegotiationStrategy, Double> scores(List<Matchup> matchups) {
+        Map<NegotiationStrategy, double[]> points = new LinkedHashMap<>(); // points, games
+        for (Matchup m : matchups) {
+            double shared = 0.5 * m.undecided();
+            double[] a = points.computeIfAbsent(m.a, s -> new double[2]);
+            double[] b = points.computeIfAbsent(m.b, s -> new double[2]);
+            a[0] += m.winsA() + shared;
+            a[1] += m.games();
+            b[0] += m.winsB() + shared;
+            b[1] += m.games();
+        }
+        Map<NegotiationStrategy, Double> scores = new LinkedHashMap<>();
+        points.entrySet().stream()
+                .sorted((x, y) -> Double.compare(y.getValue()[0] / y.getValue()[1], x.getValue()[0] / x.getValue()[1]))
+                .forEach(e -> scores.put(e.getKey(), e.getValue()[0] / e.getValue()[1]));
+        return scores;
+    }
+
+    /**
+     * Usage: StrategyEvaluator [--strategies=default,tit-for-tat,honest,reputation,greedy]
+     *        [--games=100000] [--seed=1] [--threads=N] [settings.properties] [key=value ...]
+     * Game settings are given as for StartJADE (see GameSettings); --games is per matchup.
+     */
+    public static void main(String[] args) throws java.io.IOException {
+        List<NegotiationStrategy> strategies = NegotiationStrategies.all();
+        int games = 100_000;
+        long seed = System.nanoTime();
+        int threads = java.lang.Runtime.getRuntime().availableProcessors();
+        List<String> settingsArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                settingsArgs.add(arg);
+                continue;
+            }
+            String[] kv = arg.substring(2).split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            switch (kv[0]) {
+                case "strategies" -> strategies = NegotiationStrategies.parse(kv[1]);
+                case "games" -> games = Integer.parseInt(kv[1]);
+                case "seed" -> seed = Long.parseLong(kv[1]);
+                case "threads" -> threads = Integer.parseInt(kv[1]);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (strategies.size() < 2) throw new IllegalArgumentException("Need at least two strategies");
+        GameSettings settings = GameSettings.fromArgs(settingsArgs.toArray(new String[0]));
+
+        StrategyEvaluator evaluator = new StrategyEvaluator(threads);
+        long start = System.nanoTime();
+        List<Matchup> matchups = evaluator.run(settings, strategies, games, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        evaluator.shutdown();
+
+        long total = 0;
+        for (Matchup m : matchups) {
+            total += m.games();
+            System.out.println(String.format("%-11s vs %-11s | wins %d : %d, none %d | betrayals/game %.2f : %.2f | trades/game %.2f : %.2f | turns %.1f",
+                    m.a().name(), m.b().name(), m.winsA(), m.winsB(), m.undecided(),
+                    m.betrayalsPerGame(m.a()), m.betrayalsPerGame(m.b()),
+                    m.tradesPerGame(m.a()), m.tradesPerGame(m.b()), m.meanTurns()));
+        }
+        System.out.println("Ranking (points per game, win 1, no winner 0.5):");
+        int rank = 1;
+        for (Map.Entry<NegotiationStrategy, Double> e : scores(matchups).entrySet()) {
+            System.out.println(String.format("%2d. %-11s %.3f", rank++, e.getKey().name(), e.getValue()));
+        }
+        System.out.println(String.format("%d games on %d threads in %.2fs (%.0f games/s), base seed %d",
+                total, threads, seconds, total / seconds, seed));
+    }
+}
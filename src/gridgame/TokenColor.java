@@ -0,0 +1,86 @@
+package gridgame;
+
+import java.awt.Color;
+
+/**
+ * Token and cell colors. A game uses the first GameSettings.numColors()
+ * constants (see palette()); the classic game plays with the first four.
+ */
+public enum TokenColor {
+    RED("Red", new Color(255, 105, 97)),          // bright pastel red (coral)
+    BLUE("Blue", new Color(100, 149, 237)),       // cornflower blue
+    GREEN("Green", new Color(144, 238, 144)),     // light green (lime-ish)
+    YELLOW("Yellow", new Color(255, 255, 153)),   // soft sunny yellow
+    ORANGE("Orange", new Color(255, 179, 71)),
+    PURPLE("Purple", new Color(177, 156, 217)),
+    CYAN("Cyan", new Color(128, 222, 234)),
+    PINK("Pink", new Color(255, 182, 193)),
+    BROWN("Brown", new Color(193, 154, 107)),
+    GRAY("Gray", new Color(192, 192, 192)),
+    LIME("Lime", new Color(204, 255, 102)),
+    TEAL("Teal", new Color(102, 194, 165)),
+    NAVY("Navy", new Color(110, 123, 190)),
+    MAROON("Maroon", new Color(190, 110, 120)),
+    OLIVE("Olive", new Color(186, 184, 108)),
+    CORAL("Coral", new Color(255, 127, 80)),
+    GOLD("Gold", new Color(255, 215, 0)),
+    SILVER("Silver", new Color(220, 220, 230)),
+    VIOLET("Violet", new Color(238, 130, 238)),
+    INDIGO("Indigo", new Color(140, 120, 200)),
+    TURQUOISE("Turquoise", new Color(64, 224, 208)),
+    SALMON("Salmon", new Color(250, 128, 114)),
+    KHAKI("Khaki", new Color(240, 230, 140)),
+    PLUM("Plum", new Color(221, 160, 221)),
+    MINT("Mint", new Color(189, 252, 201)),
+    PEACH("Peach", new Color(255, 218, 185)),
+    LAVENDER("Lavender", new Color(230, 230, 250)),
+    BEIGE("Beige", new Color(245, 245, 220)),
+    CRIMSON("Crimson", new Color(220, 80, 100)),
+    AMBER("Amber", new Color(255, 191, 0)),
+    AQUA("Aqua", new Color(127, 255, 212)),
+    IVORY("Ivory", new Color(255, 255, 240));
+
+    public static final int COUNT = values().length;
+
+    private static final TokenColor[] VALUES = values();
+
+    private final String displayName;
+    private final Color color;
+
+    TokenColor(String displayName, Color color) {
+        this.displayName = displayName;
+        this.color = color;
+    }
+
+    // Background color of a cell with this color in the GUI
+    public Color awtColor() {
+        return color;
+    }
+
+    public static TokenColor of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    // The first n colors, the ones a game with numColors = n plays with
+    public static TokenColor[] palette(int n) {
+        if (n < 1 || n > COUNT) {
+            throw new IllegalArgumentException("Number of colors must be between 1 and " + COUNT + ": " + n);
+        }
+        TokenColor[] palette = new TokenColor[n];
+        System.arraycopy(VALUES, 0, palette, 0, n);
+        return palette;
+    }
+
+    // Parse a display name ("Red") or constant name ("RED")
+    public static TokenColor fromName(String name) {
+        for (TokenColor c : VALUES) {
+            if (c.displayName.equalsIgnoreCase(name)) return c;
+        }
+        throw new IllegalArgumentException("Unknown token color '" + name + "'");
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
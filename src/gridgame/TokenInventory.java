@@ -0,0 +1,105 @@
+package gridgame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A player's tokens, kept as one count per TokenColor. has/take/give are
+ * O(1) and picking a token to offer allocates nothing.
+ */
+public class TokenInventory {
+
+    private final int[] counts = new int[TokenColor.COUNT];
+    private int size = 0;
+
+    public TokenInventory() {
+    }
+
+    public TokenInventory(TokenInventory other) {
+        System.arraycopy(other.counts, 0, counts, 0, counts.length);
+        size = other.size;
+    }
+
+    public boolean has(TokenColor color) {
+        return counts[color.ordinal()] > 0;
+    }
+
+    public int count(TokenColor color) {
+        return counts[color.ordinal()];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Remove one token of this color; false if there is none
+    public boolean take(TokenColor color) {
+        int i = color.ordinal();
+        if (counts[i] == 0) return false;
+        counts[i]--;
+        size--;
+        return true;
+    }
+
+    public void give(TokenColor color) {
+        give(color, 1);
+    }
+
+    public void give(TokenColor color, int n) {
+        if (n < 0) throw new IllegalArgumentException("Negative token count " + n);
+        counts[color.ordinal()] += n;
+        size += n;
+    }
+
+    /**
+     * The token to offer in a trade: the color held most often (ties go to the
+     * lowest ordinal), or null when the inventory is empty.
+     */
+    public TokenColor mostPlentiful() {
+        int best = -1, bestCount = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > bestCount) {
+                best = i;
+                bestCount = counts[i];
+            }
+        }
+        return best < 0 ? null : TokenColor.of(best);
+    }
+
+    // One past the highest ordinal held; the codec only writes counts below it
+    int usedColors() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) return i + 1;
+        }
+        return 0;
+    }
+
+    // One entry per token, grouped by color (for display and the textual message format)
+    public List<TokenColor> toList() {
+        List<TokenColor> list = new ArrayList<>(size);
+        for (int i = 0; i < counts.length; i++) {
+            for (int n = 0; n < counts[i]; n++) list.add(TokenColor.of(i));
+        }
+        return list;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TokenInventory other && Arrays.equals(counts, other.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,315 @@
+package gridgame;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays many independent headless games over a grid of GameSettings and
+ * aggregates the outcomes per parameter point.
+ *
+ * Every game gets its own GameEngine, so games share no state and the work is
+ * simply split into batches on a ForkJoinPool. Each batch counts into local
+ * arrays and flushes them into the per-point LongAdders once at the end, which
+ * keeps the shared counters almost contention-free.
+ */
+public class TournamentRunner {
+
+    // Games played by one task before it stops splitting
+    private static final int BATCH_SIZE = 512;
+
+    private final ForkJoinPool pool;
+
+    public TournamentRunner(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Play gamesPerPoint games for every point of the grid. Game i of point p
+     * uses seed baseSeed + p * gamesPerPoint + i, so a sweep is reproducible.
+     */
+    public List<SweepStats> run(ParameterGrid grid, int gamesPerPoint, long baseSeed) {
+        List<GameSettings> points = grid.points();
+        List<SweepStats> results = new ArrayList<>(points.size());
+        List<GameBatch> tasks = new ArrayList<>(points.size());
+
+        for (int p = 0; p < points.size(); p++) {
+            SweepStats stats = new SweepStats(points.get(p));
+            results.add(stats);
+            long firstSeed = baseSeed + (long) p * gamesPerPoint;
+            tasks.add(new GameBatch(stats, firstSeed, 0, gamesPerPoint));
+        }
+
+        for (GameBatch task : tasks) pool.execute(task);
+        for (GameBatch task : tasks) task.join();
+        return results;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static class GameBatch extends RecursiveAction {
+        private final SweepStats stats;
+        private final long firstSeed;
+        private final int from, to;
+
+        GameBatch(SweepStats stats, long firstSeed, int from, int to) {
+            this.stats = stats;
+            this.firstSeed = firstSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new GameBatch(stats, firstSeed, from, mid),
+                          new GameBatch(stats, firstSeed, mid, to));
+                return;
+            }
+
+            GameSettings settings = stats.settings;
+            long[] outcomes = new long[GameResult.Outcome.values().length];
+            long[] winsBySeat = new long[settings.numPlayers()];
+            long[] turnHistogram = new long[settings.maxGameTurns() + 1];
+            long turns = 0;
+
+            for (int i = from; i < to; i++) {
+                GameResult result = new GameEngine(settings, firstSeed + i).run();
+                outcomes[result.outcome().ordinal()]++;
+                turnHistogram[result.turns()]++;
+                turns += result.turns();
+                if (result.hasWinner()) {
+                    List<GameResult.PlayerStats> players = result.players();
+                    for (int seat = 0; seat < players.size(); seat++) {
+                        if (players.get(seat).reachedGoal()) winsBySeat[seat]++;
+                    }
+                }
+            }
+
+            stats.add(outcomes, winsBySeat, turnHistogram, turns);
+        }
+    }
+
+    /**
+     * The values to sweep for each knob. points() is the cartesian product,
+     * with unset knobs left at their GameConfig defaults.
+     */
+    public static class ParameterGrid {
+        private List<Integer> numPlayers = List.of(GameConfig.NUM_PLAYERS);
+        private List<Integer> gridWidths = List.of(GameConfig.GRID_WIDTH);
+        private List<Integer> gridHeights = List.of(GameConfig.GRID_HEIGHT);
+        private List<Integer> numColors = List.of(GameConfig.NUM_COLORS);
+        private List<Integer> tokensPerPlayer = List.of(GameConfig.TOKENS_PER_PLAYER);
+        private List<Double> betrayalProbabilities = List.of(GameConfig.BETRAYAL_PROBABILITY);
+        private List<Integer> maxBlockedTurns = List.of(GameConfig.MAX_BLOCKED_TURNS);
+        private int maxGameTurns = GameConfig.MAX_GAME_TURNS;
+        private List<Boolean> simultaneousRounds = List.of(GameConfig.SIMULTANEOUS_ROUNDS);
+        private List<Boolean> tradeClearing = List.of(GameConfig.TRADE_CLEARING);
+        private List<Boolean> exclusiveCells = List.of(GameConfig.EXCLUSIVE_CELLS);
+        private List<Integer> tradeRadius = List.of(GameConfig.TRADE_RADIUS);
+        private List<Integer> finishers = List.of(GameConfig.FINISHERS);
+
+        public ParameterGrid numPlayers(List<Integer> values) { numPlayers = values; return this; }
+        public ParameterGrid gridWidths(List<Integer> values) { gridWidths = values; return this; }
+        public ParameterGrid gridHeights(List<Integer> values) { gridHeights = values; return this; }
+        public ParameterGrid numColors(List<Integer> values) { numColors = values; return this; }
+        public ParameterGrid tokensPerPlayer(List<Integer> values) { tokensPerPlayer = values; return this; }
+        public ParameterGrid betrayalProbabilities(List<Double> values) { betrayalProbabilities = values; return this; }
+        public ParameterGrid maxBlockedTurns(List<Integer> values) { maxBlockedTurns = values; return this; }
+        public ParameterGrid maxGameTurns(int value) { maxGameTurns = value; return this; }
+        public ParameterGrid simultaneousRounds(List<Boolean> values) { simultaneousRounds = values; return this; }
+        public ParameterGrid tradeClearing(List<Boolean> values) { tradeClearing = values; return this; }
+        public ParameterGrid exclusiveCells(List<Boolean> values) { exclusiveCells = values; return this; }
+        public ParameterGrid tradeRadius(List<Integer> values) { tradeRadius = values; return this; }
+        public ParameterGrid finishers(List<Integer> values) { finishers = values; return this; }
+
+        /**
+         * Every combination of the knobs' values, the last knob (finishers)
+         * varying fastest. Points with tradeClearing but not
+         * simultaneousRounds (clearing works per round), or with more
+         * finishers than players, are skipped.
+         */
+        public List<GameSettings> points() {
+            List<List<?>> knobs = List.of(numPlayers, gridWidths, gridHeights, numColors, tokensPerPlayer, betrayalProbabilities,
+                    maxBlockedTurns, simultaneousRounds, tradeClearing, exclusiveCells, tradeRadius, finishers);
+            for (List<?> values : knobs) {
+                if (values.isEmpty()) return new ArrayList<>();
+            }
+
+            List<GameSettings> points = new ArrayList<>();
+            int[] at = new int[knobs.size()];  // index into each knob's values
+            while (true) {
+                int players = numPlayers.get(at[0]), finish = finishers.get(at[11]);
+                boolean simultaneous = simultaneousRounds.get(at[7]), clearing = tradeClearing.get(at[8]);
+                if ((simultaneous || !clearing) && finish <= players) {
+                    points.add(new GameSettings(players, gridWidths.get(at[1]), gridHeights.get(at[2]), numColors.get(at[3]),
+                            tokensPerPlayer.get(at[4]), betrayalProbabilities.get(at[5]), maxBlockedTurns.get(at[6]),
+                            maxGameTurns, 0, GameConfig.TURN_TIMEOUT_MS, simultaneous, clearing, exclusiveCells.get(at[9]),
+                            tradeRadius.get(at[10]), finish, GameConfig.SHARED_REPUTATION));
+                }
+
+                // Count on like an odometer
+                int k = at.length - 1;
+                while (k >= 0 && ++at[k] == knobs.get(k).size()) at[k--] = 0;
+                if (k < 0) return points;
+            }
+        }
+    }
+
+    /**
+     * Aggregated outcomes of all games played for one parameter point.
+     */
+    public static class SweepStats {
+        private final GameSettings settings;
+        private final LongAdder games = new LongAdder();
+        private final LongAdder totalTurns = new LongAdder();
+        private final LongAdder[] outcomes;
+        private final LongAdder[] winsBySeat;
+        private final LongAdder[] turnHistogram;
+
+        SweepStats(GameSettings settings) {
+            this.settings = settings;
+            this.outcomes = adders(GameResult.Outcome.values().length);
+            this.winsBySeat = adders(settings.numPlayers());
+            this.turnHistogram = adders(settings.maxGameTurns() + 1);
+        }
+
+        private static LongAdder[] adders(int n) {
+            LongAdder[] adders = new LongAdder[n];
+            for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+            return adders;
+        }
+
+        // Flush one batch's local counts
+        void add(long[] outcomeCounts, long[] seatWins, long[] histogram, long turns) {
+            long batchGames = 0;
+            for (int i = 0; i < outcomeCounts.length; i++) {
+                if (outcomeCounts[i] != 0) outcomes[i].add(outcomeCounts[i]);
+                batchGames += outcomeCounts[i];
+            }
+            for (int i = 0; i < seatWins.length; i++) {
+                if (seatWins[i] != 0) winsBySeat[i].add(seatWins[i]);
+            }
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] != 0) turnHistogram[i].add(histogram[i]);
+            }
+            games.add(batchGames);
+            totalTurns.add(turns);
+        }
+
+        public GameSettings settings() { return settings; }
+        public long games() { return games.sum(); }
+
+        public double rate(GameResult.Outcome outcome) {
+            long n = games();
+            return n == 0 ? 0 : (double) outcomes[outcome.ordinal()].sum() / n;
+        }
+
+        public double winRate() { return rate(GameResult.Outcome.WIN); }
+        public double drawRate() { return rate(GameResult.Outcome.DRAW); }
+
+        public double seatWinRate(int seat) {
+            long n = games();
+            return n == 0 ? 0 : (double) winsBySeat[seat].sum() / n;
+        }
+
+        public double meanTurns() {
+            long n = games();
+            return n == 0 ? 0 : (double) totalTurns.sum() / n;
+        }
+
+        public long[] turnHistogram() {
+            long[] counts = new long[turnHistogram.length];
+            for (int i = 0; i < counts.length; i++) counts[i] = turnHistogram[i].sum();
+            return counts;
+        }
+
+        // Smallest turn count t such that at least fraction q of the games ended by turn t
+        public int turnPercentile(double q) {
+            long[] counts = turnHistogram();
+            long target = (long) Math.ceil(q * games());
+            long seen = 0;
+            for (int t = 0; t < counts.length; t++) {
+                seen += counts[t];
+                if (seen >= target && seen > 0) return t;
+            }
+            return counts.length - 1;
+        }
+    }
+
+    /**
+     * Usage: TournamentRunner [--players=2,4] [--width=7,20] [--height=5,20]
+     *        [--colors=4,16,32] [--tokens=5,7] [--betrayal=0,0.5,0.9] [--max-blocked=3] [--max-turns=50]
+     *        [--simultaneous=false,true] [--clearing=false,true] [--exclusive=false,true] [--radius=0,5,10]
+     *        [--finishers=1,2]
+     *        [--games=10000] [--seed=1] [--threads=N]
+     */
+    public static void main(String[] args) {
+        ParameterGrid grid = new ParameterGrid();
+        int games = 10_000;
+        long seed = System.nanoTime();
+        int threads = java.lang.Runtime.getRuntime().availableProcessors();
+
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            switch (kv[0]) {
+                case "players" -> grid.numPlayers(ints(kv[1]));
+                case "width" -> grid.gridWidths(ints(kv[1]));
+                case "height" -> grid.gridHeights(ints(kv[1]));
+                case "colors" -> grid.numColors(ints(kv[1]));
+                case "tokens" -> grid.tokensPerPlayer(ints(kv[1]));
+                case "betrayal" -> grid.betrayalProbabilities(doubles(kv[1]));
+                case "max-blocked" -> grid.maxBlockedTurns(ints(kv[1]));
+                case "max-turns" -> grid.maxGameTurns(Integer.parseInt(kv[1]));
+                case "simultaneous" -> grid.simultaneousRounds(booleans(kv[1]));
+                case "clearing" -> grid.tradeClearing(booleans(kv[1]));
+                case "exclusive" -> grid.exclusiveCells(booleans(kv[1]));
+                case "radius" -> grid.tradeRadius(ints(kv[1]));
+                case "finishers" -> grid.finishers(ints(kv[1]));
+                case "games" -> games = Integer.parseInt(kv[1]);
+                case "seed" -> seed = Long.parseLong(kv[1]);
+                case "threads" -> threads = Integer.parseInt(kv[1]);
+                default -> throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        TournamentRunner runner = new TournamentRunner(threads);
+        long start = System.nanoTime();
+        List<SweepStats> results = runner.run(grid, games, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        runner.shutdown();
+
+        long total = 0;
+        for (SweepStats s : results) {
+            total += s.games();
+            System.out.println(String.format("%s | win %.3f draw %.3f limit %.3f | turns mean %.1f p50 %d p90 %d",
+                    s.settings(), s.winRate(), s.drawRate(), s.rate(GameResult.Outcome.TURN_LIMIT),
+                    s.meanTurns(), s.turnPercentile(0.5), s.turnPercentile(0.9)));
+        }
+        System.out.println(String.format("%d games on %d threads in %.2fs (%.0f games/s), base seed %d",
+                total, threads, seconds, total / seconds, seed));
+    }
+
+    private static List<Integer> ints(String csv) {
+        List<Integer> values = new ArrayList<>();
+        for (String v : csv.split(",")) values.add(Integer.parseInt(v.trim()));
+        return values;
+    }
+
+    private static List<Boolean> booleans(String csv) {
+        List<Boolean> values = new ArrayList<>();
+        for (String v : csv.split(",")) values.add(Boolean.parseBoolean(v.trim()));
+        return values;
+    }
+
+    private static List<Double> doubles(String csv) {
+        List<Double> values = new ArrayList<>();
+        for (String v : csv.split(",")) values.add(Double.parseDouble(v.trim()));
+        return values;
+    }
+}
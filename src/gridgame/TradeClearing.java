@@ -0,0 +1,156 @@
+package gridgame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batched trade matching for one round. Instead of every blocked player
+ * proposing to a single partner, MainAgent (or the headless GameEngine)
+ * collects one Order per blocked player and matches them all at once:
+ * pairwise swaps first, then cycles of up to maxCycle players in which
+ * each one gives a token to the previous and gets its need from the next.
+ * Everybody in a match gives exactly one token and gets the one it needs.
+ *
+ * Orders are served in list order (the round's priority order), and each
+ * order takes the shortest cycle it is part of, found by a breadth-first
+ * search over the players offering the color it needs. With a Reach
+ * (tradeRadius) a player only gives to players it can reach.
+ */
+public final class TradeClearing {
+
+    // Longest trade cycle looked for; longer ones are rare and expensive to find
+    public static final int MAX_CYCLE = 6;
+
+    // A blocked player's order: the color it needs and the tokens it can give for it
+    public record Order(int seat, TokenColor need, TokenInventory spare) { }
+
+    // One transfer of a matched cycle
+    public record Trade(int from, int to, TokenColor color) { }
+
+    // Whether one seat may give a token to another, e.g. within tradeRadius
+    public interface Reach {
+        boolean reaches(int from, int to);
+    }
+
+    private static final Reach ANYONE = (from, to) -> true;
+
+    private TradeClearing() {
+    }
+
+    // What a blocked player offers: everything it holds except the color it needs
+    public static TokenInventory spare(TokenInventory tokens, TokenColor need) {
+        TokenInventory spare = new TokenInventory(tokens);
+        while (spare.take(need)) {
+            // drop them all
+        }
+        return spare;
+    }
+
+    public static List<Trade> match(List<Order> orders) {
+        return match(orders, MAX_CYCLE, ANYONE);
+    }
+
+    public static List<Trade> match(List<Order> orders, Reach reach) {
+        return match(orders, MAX_CYCLE, reach);
+    }
+
+    /**
+     * Match orders into cycles of 2..maxCycle players in which every
+     * transfer is within reach. Returns the transfers (seat to seat, as
+     * given in the orders) in cycle order.
+     */
+    public static List<Trade> match(List<Order> orders, int maxCycle, Reach reach) {
+        int n = orders.size();
+        List<Trade> trades = new ArrayList<>();
+        if (n < 2) return trades;
+
+        // offering[offsets[c]..offsets[c + 1]): orders whose spare holds color c
+        int[] offsets = new int[TokenColor.COUNT + 1];
+        for (Order o : orders) {
+            for (TokenColor c : TokenColor.values()) {
+                if (o.spare().has(c)) offsets[c.ordinal() + 1]++;
+            }
+        }
+        for (int c = 0; c < TokenColor.COUNT; c++) offsets[c + 1] += offsets[c];
+        int[] offering = new int[offsets[TokenColor.COUNT]];
+        int[] fill = offsets.clone();
+        for (int i = 0; i < n; i++) {
+            for (TokenColor c : TokenColor.values()) {
+                if (orders.get(i).spare().has(c)) offering[fill[c.ordinal()]++] = i;
+            }
+        }
+
+        Search search = new Search(n, reach);
+        boolean[] matched = new boolean[n];
+        // Swaps for everyone first, so a long cycle never uses up a player that could have swapped
+        for (int length : new int[] { 2, maxCycle }) {
+            for (int p = 0; p < n; p++) {
+                if (!matched[p]) search.cycle(p, length, orders, offsets, offering, matched, trades);
+            }
+        }
+        return trades;
+    }
+
+    // Breadth-first search state, reused for every start order
+    private static final class Search {
+        private final int[] seen;    // stamp of the search that reached the order
+        private final int[] parent;  // the order this one gives to
+        private final int[] depth;
+        private final int[] queue;
+        private final Reach reach;
+        private int stamp = 0;
+
+        Search(int n, Reach reach) {
+            this.reach = reach;
+            seen = new int[n];
+            parent = new int[n];
+            depth = new int[n];
+            queue = new int[n];
+        }
+
+        // Find the shortest cycle through start of at most maxLength players and settle it
+        void cycle(int start, int maxLength, List<Order> orders, int[] offsets, int[] offering,
+                   boolean[] matched, List<Trade> trades) {
+            stamp++;
+            seen[start] = stamp;
+            depth[start] = 0;
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            Order first = orders.get(start);
+
+            while (head < tail) {
+                int u = queue[head++];
+                int need = orders.get(u).need().ordinal();
+                int to = orders.get(u).seat();
+                // v gives u what it needs
+                for (int k = offsets[need]; k < offsets[need + 1]; k++) {
+                    int v = offering[k];
+                    if (matched[v] || seen[v] == stamp || !reach.reaches(orders.get(v).seat(), to)) continue;
+                    seen[v] = stamp;
+                    parent[v] = u;
+                    depth[v] = depth[u] + 1;
+                    Order last = orders.get(v);
+                    if (first.spare().has(last.need()) && reach.reaches(first.seat(), last.seat())) {
+                        settle(start, v, orders, matched, trades);
+                        return;
+                    }
+                    if (depth[v] + 2 <= maxLength) queue[tail++] = v;
+                }
+            }
+        }
+
+        // start gives to last, and every order on the path gives to its parent
+        private void settle(int start, int last, List<Order> orders, boolean[] matched, List<Trade> trades) {
+            Order first = orders.get(start);
+            Order end = orders.get(last);
+            trades.add(new Trade(first.seat(), end.seat(), end.need()));
+            matched[start] = true;
+            for (int v = last; v != start; v = parent[v]) {
+                Order giver = orders.get(v);
+                Order taker = orders.get(parent[v]);
+                trades.add(new Trade(giver.seat(), taker.seat(), taker.need()));
+                matched[v] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package gridgame;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * What a player remembers about its trade partners within one game: how
+ * often each one betrayed it or paid honestly, whether the last trade with
+ * it was a betrayal, and its decayed Reputation. NegotiationStrategies
+ * decide from it.
+ *
+ * With sharedReputation the memory also sees the game's reputation board
+ * (share()), and trust() and mostTrusted() go by the board, which has
+ * everyone's experience, our own included.
+ */
+public final class TradeMemory {
+
+    private final Map<String, Integer> betrayals = new HashMap<>();
+    private final Map<String, Integer> honestTrades = new HashMap<>();
+    private final Set<String> betrayedLast = new HashSet<>();
+    private Reputation reputation = new Reputation();
+    private Reputation board;   // not copied or saved; whoever keeps the board shares it again
+
+    public TradeMemory() {
+    }
+
+    public TradeMemory(TradeMemory other) {
+        betrayals.putAll(other.betrayals);
+        honestTrades.putAll(other.honestTrades);
+        betrayedLast.addAll(other.betrayedLast);
+        reputation = new Reputation(other.reputation);
+    }
+
+    // A partner did not pay us in round (see Reputation.roundOf())
+    public void betrayedBy(String player, int round) {
+        betrayals.merge(player, 1, Integer::sum);
+        betrayedLast.add(player);
+        reputation.betrayal(player, round);
+    }
+
+    public void paidBy(String player, int round) {
+        honestTrades.merge(player, 1, Integer::sum);
+        betrayedLast.remove(player);
+        reputation.honest(player, round);
+    }
+
+    // Judge by the game's reputation board from now on
+    public void share(Reputation board) {
+        this.board = board;
+    }
+
+    // Let scores decay up to round
+    public void advance(int round) {
+        reputation.advance(round);
+        if (board != null) board.advance(round);
+    }
+
+    // 0.5 for strangers, towards 0 for betrayers and 1 for honest traders (see Reputation)
+    public double trust(String player) {
+        return (board != null ? board : reputation).trust(player);
+    }
+
+    // The candidate with the best reputation, without sorting them
+    public String mostTrusted(List<String> candidates) {
+        return (board != null ? board : reputation).mostTrusted(candidates);
+    }
+
+    public Reputation reputation() {
+        return reputation;
+    }
+
+    public int betrayals(String player) {
+        return betrayals.getOrDefault(player, 0);
+    }
+
+    public int honestTrades(String player) {
+        return honestTrades.getOrDefault(player, 0);
+    }
+
+    public boolean betrayedLastTime(String player) {
+        return betrayedLast.contains(player);
+    }
+
+    // Betrayals by player, read-only (see TradeRules)
+    public Map<String, Integer> betrayalCounts() {
+        return Collections.unmodifiableMap(betrayals);
+    }
+
+    // Everyone we have counted a trade with (for snapshots)
+    public Set<String> players() {
+        Set<String> all = new TreeSet<>(betrayals.keySet());
+        all.addAll(honestTrades.keySet());
+        return all;
+    }
+
+    // Set one player's record, e.g. from a snapshot
+    public void restore(String player, int betrayalCount, int honestCount, boolean betrayedLastTime) {
+        if (betrayalCount > 0) betrayals.put(player, betrayalCount); else betrayals.remove(player);
+        if (honestCount > 0) honestTrades.put(player, honestCount); else honestTrades.remove(player);
+        if (betrayedLastTime) betrayedLast.add(player); else betrayedLast.remove(player);
+    }
+
+    public void restore(Reputation reputation) {
+        this.reputation = new Reputation(reputation);
+    }
+
+    // A copy with players renamed (names missing from the map stay), e.g. for another game's players
+    public TradeMemory renamed(Map<String, String> names) {
+        TradeMemory copy = new TradeMemory();
+        for (String p : players()) {
+            copy.restore(names.getOrDefault(p, p), betrayals(p), honestTrades(p), betrayedLastTime(p));
+        }
+        copy.reputation = reputation.renamed(names);
+        return copy;
+    }
+
+    public void clear() {
+        betrayals.clear();
+        honestTrades.clear();
+        betrayedLast.clear();
+        reputation = new Reputation();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TradeMemory m && betrayals.equals(m.betrayals)
+                && honestTrades.equals(m.honestTrades) && betrayedLast.equals(m.betrayedLast)
+                && reputation.equals(m.reputation);
+    }
+
+    @Override
+    public int hashCode() {
+        return betrayals.hashCode() * 31 + honestTrades.hashCode();
+    }
+}
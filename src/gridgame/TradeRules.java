@@ -0,0 +1,44 @@
+package gridgame;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The trade decisions shared by PlayerAgent and the headless GameEngine.
+ */
+public final class TradeRules {
+
+    // Proposals from a player who betrayed us this often are rejected outright
+    public static final int MAX_TOLERATED_BETRAYALS = 2;
+
+    private TradeRules() {
+    }
+
+    /**
+     * Pick the player to propose a trade to: the one with the fewest recorded
+     * betrayals, the first in list order on ties. A single scan, no sorting.
+     */
+    public static String selectPlayerToTrade(List<String> candidates, Map<String, Integer> betrayalCount) {
+        String best = null;
+        int bestCount = Integer.MAX_VALUE;
+        for (String candidate : candidates) {
+            int count = betrayalCount.getOrDefault(candidate, 0);
+            if (count < bestCount) {
+                best = candidate;
+                bestCount = count;
+                if (count == 0) break;
+            }
+        }
+        return best;
+    }
+
+    // Offer the token held most often, or nothing (null) when empty-handed
+    public static TokenColor selectOfferToken(TokenInventory tokens) {
+        return tokens.mostPlentiful();
+    }
+
+    // Accept unless the proposer betrayed too often, and only if the token is at hand
+    public static boolean acceptsProposal(int proposerBetrayals, TokenInventory tokens, TokenColor need) {
+        return proposerBetrayals < MAX_TOLERATED_BETRAYALS && tokens.has(need);
+    }
+}
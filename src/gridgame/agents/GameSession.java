@@ -0,0 +1,55 @@
+package gridgame.agents;
+
+import gridgame.GameResult;
+import gridgame.GameSettings;
+import gridgame.GameSnapshot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A run of games hosted on the platform by one MainAgent, as StartJADE
+ * hands it over. The id scopes the session's players: they are leased from
+ * the player pool into it and registered with the DF under it, and MainAgent
+ * and the other players only look up players of the same session, so many
+ * sessions can share one platform.
+ *
+ * nextGame is asked before every game (false ends the session and releases
+ * the players); onEnd receives each game's result. seeds gives each game
+ * its seed, which decides the whole game (see GameRandom) and is reported
+ * in its result. With restore, the first game continues that snapshot
+ * instead of starting a new one.
+ */
+public record GameSession(String id, GameSettings settings, boolean gui, BooleanSupplier nextGame, Consumer<GameResult> onEnd,
+                          LongSupplier seeds, GameSnapshot restore) {
+
+    public GameSession(String id, GameSettings settings, boolean gui, BooleanSupplier nextGame, Consumer<GameResult> onEnd) {
+        this(id, settings, gui, nextGame, onEnd, randomSeeds(), null);
+    }
+
+    // Session of agents started without one, e.g. from the JADE command line
+    public static final String DEFAULT_ID = "default";
+
+    // nextGame for sessions that share a number of games left to play
+    public static BooleanSupplier gamesFrom(AtomicInteger left) {
+        return () -> left.getAndDecrement() > 0;
+    }
+
+    public static BooleanSupplier oneGame() {
+        return gamesFrom(new AtomicInteger(1));
+    }
+
+    // seeds for sessions that share a sequence of seeds: first, first + 1, ...
+    public static LongSupplier seedsFrom(AtomicLong next) {
+        return next::getAndIncrement;
+    }
+
+    // seeds of games that need not be replayed, still reported so they can be
+    public static LongSupplier randomSeeds() {
+        return () -> ThreadLocalRandom.current().nextLong();
+    }
+}
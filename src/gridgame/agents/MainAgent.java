@@ -0,0 +1,1113 @@
+package gridgame.agents;
+
+import jade.core.Agent;
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.core.behaviours.Behaviour;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.TickerBehaviour;
+import jade.core.behaviours.WakerBehaviour;
+import jade.domain.FIPAException;
+
+import gridgame.GameConfig;
+import gridgame.GameGUI;
+import gridgame.GameJournal;
+import gridgame.GameListener;
+import gridgame.GameLog;
+import gridgame.GameMetrics;
+import gridgame.GameRandom;
+import gridgame.GameResult;
+import gridgame.GameSettings;
+import gridgame.GameSnapshot;
+import gridgame.GameStatus;
+import gridgame.Grid;
+import gridgame.MessageCodec;
+import gridgame.Reputation;
+import gridgame.RoundRules;
+import gridgame.SpatialIndex;
+import gridgame.TokenColor;
+import gridgame.TokenInventory;
+import gridgame.TradeClearing;
+import gridgame.TradeMemory;
+
+import java.util.*;
+import java.util.List;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class MainAgent extends Agent {
+
+    // The game window, or a listener that ignores updates when the session has no GUI
+    private GameListener gui = (name, x, y, goalX, goalY) -> { };
+    private GameLog log;
+
+    // The game this agent runs and its settings, passed as the agent arguments (see readSession)
+    private GameSession session;
+    private GameSettings settings;
+    private int width;
+    private int height;
+    private TokenColor[] colors;
+
+    // Remove NUM_PLAYERS static, get dynamically from playerNames list
+    private java.util.List<String> playerNames = new ArrayList<>();
+
+    // Players leased for this session, in player number order; each game seats all of them
+    private final Map<String, AID> leased = new TreeMap<>(PlayerDirectory.BY_NUMBER);
+    private int gameNumber = 0;
+
+    private Grid grid;
+    private Map<String, PlayerData> players = new HashMap<>();
+    private int turnCount = 0;
+    // Where the players stand, by seat (exclusiveCells, tradeRadius)
+    private SpatialIndex positions;
+    // Who is still playing, by seat; players that reached their goals or were eliminated get no more turns
+    private GameStatus status;
+    // With sharedReputation: every paid or betrayed trade of the game, queried by the players via the DF
+    private Reputation board;
+
+    // The game's seed and its "placement" stream; the board and every player draw from their own (GameRandom)
+    private long gameSeed;
+    private GameRandom placement;
+
+    // Event record of this game, when the gridgame.journal property names a file. All games of
+    // the JVM share one journal; a game's events are collected and appended together at its end.
+    private static GameJournal sharedJournal;
+    private GameJournal journal;
+    private final List<GameJournal.Event> journalEvents = new ArrayList<>();
+
+    private final GameMetrics metrics = GameMetrics.get();
+
+    // Where the game is checkpointed every checkpointInterval turns, when the gridgame.checkpoint property is set
+    private java.nio.file.Path checkpointFile;
+    private int checkpointInterval;
+
+    @Override
+    protected void setup() {
+        log = GameLog.get(getLocalName());
+        log.info("Initializing the game...");
+
+        try {
+            session = readSession(getArguments());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid game settings: {}", e.getMessage());
+            doDelete();
+            return;
+        }
+        settings = session.settings();
+        width = settings.gridWidth();
+        height = settings.gridHeight();
+        colors = TokenColor.palette(settings.numColors());
+        log.info("Session {}: {}", session.id(), settings);
+
+        openJournal();
+        startMetricsSnapshots();
+        openCheckpoints();
+
+        if (settings.sharedReputation()) openReputationBoard();
+
+        // Players may still be starting, possibly in other containers
+        addBehaviour(new LeasePlayersBehaviour());
+    }
+
+    @Override
+    protected void takeDown() {
+        releasePlayers();
+        if (settings != null && settings.sharedReputation()) PlayerDirectory.deregister(this);
+    }
+
+    // Register the session's reputation board with the DF and answer the players' queries
+    private void openReputationBoard() {
+        try {
+            PlayerDirectory.registerBoard(this, session.id());
+        } catch (FIPAException e) {
+            log.warn("Cannot register the reputation board: {}", e.getMessage());
+            return;
+        }
+        addBehaviour(new ReputationBoardBehaviour());
+    }
+
+    /**
+     * Answers a "reputation-query" (QUERY_REF) with the scores changed since
+     * the round the player asks for, so a player's copy of the board catches
+     * up without the whole board being sent each time.
+     */
+    private class ReputationBoardBehaviour extends CyclicBehaviour {
+        private final MessageTemplate queries = MessageTemplate.and(
+                MessageTemplate.MatchConversationId("reputation-query"),
+                MessageTemplate.MatchPerformative(ACLMessage.QUERY_REF));
+
+        @Override
+        public void action() {
+            ACLMessage query = receive(queries);
+            if (query == null) {
+                block();
+                return;
+            }
+            int since = MessageCodec.decode(query.getByteSequenceContent(), MessageCodec.ReputationQuery.class).since();
+            Reputation current = board != null ? board : new Reputation();
+            ACLMessage reply = query.createReply();
+            reply.setPerformative(ACLMessage.INFORM);
+            reply.setConversationId("reputation-scores");
+            reply.setByteSequenceContent(MessageCodec.encode(new MessageCodec.ReputationScores(current.origin(), current.round(),
+                    current.changedSince(since))));
+            send(reply);
+        }
+    }
+
+    /**
+     * Gathers settings.numPlayers() players for the session: those already
+     * registered under it in the DF, plus players leased from the pool. A
+     * lease is a "lease" REQUEST that the player AGREEs to only while it is
+     * in the pool, so several MainAgents can lease at once. Once enough
+     * players have agreed, the first game starts.
+     */
+    private class LeasePlayersBehaviour extends TickerBehaviour {
+        private final long deadline = System.currentTimeMillis() + GameConfig.PLAYER_LOOKUP_TIMEOUT_MS;
+        private final MessageTemplate leaseReplies = MessageTemplate.MatchConversationId("lease");
+        private final Set<String> asked = new HashSet<>();
+        private final Random random = new Random();
+
+        LeasePlayersBehaviour() {
+            super(MainAgent.this, GameConfig.PLAYER_LOOKUP_INTERVAL_MS);
+        }
+
+        @Override
+        protected void onTick() {
+            ACLMessage reply;
+            while ((reply = receive(leaseReplies)) != null) {
+                String name = reply.getSender().getLocalName();
+                asked.remove(name);
+                if (reply.getPerformative() == ACLMessage.AGREE) {
+                    leased.put(name, reply.getSender());
+                }
+            }
+
+            if (leased.size() >= settings.numPlayers() && asked.isEmpty()) {
+                stop();
+                // Keep the first numPlayers (player number order), give back any extra
+                List<String> extra = new ArrayList<>(leased.keySet()).subList(settings.numPlayers(), leased.size());
+                release(new ArrayList<>(extra));
+                startNextGame();
+                return;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                stop();
+                log.error("Only {} of {} players joined within {} ms", leased.size(), settings.numPlayers(),
+                        GameConfig.PLAYER_LOOKUP_TIMEOUT_MS);
+                doDelete();
+                return;
+            }
+            if (!asked.isEmpty()) return; // wait for the answers first
+
+            try {
+                leased.putAll(PlayerDirectory.search(myAgent, session.id()));
+                int missing = settings.numPlayers() - leased.size();
+                if (missing <= 0) return;
+
+                // Shuffled, so MainAgents leasing at the same time mostly ask different players
+                List<AID> pool = new ArrayList<>(PlayerDirectory.search(myAgent, PlayerDirectory.POOL).values());
+                Collections.shuffle(pool, random);
+                ACLMessage lease = new ACLMessage(ACLMessage.REQUEST);
+                lease.setConversationId("lease");
+                lease.setByteSequenceContent(MessageCodec.encode(new MessageCodec.Lease(session.id())));
+                for (AID player : pool.subList(0, Math.min(missing, pool.size()))) {
+                    lease.addReceiver(player);
+                    asked.add(player.getLocalName());
+                }
+                if (!asked.isEmpty()) send(lease);
+            } catch (FIPAException e) {
+                log.warn("DF search failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Give the session's players back to the pool
+    private void releasePlayers() {
+        release(new ArrayList<>(leased.keySet()));
+    }
+
+    private void release(List<String> names) {
+        if (names.isEmpty()) return;
+        ACLMessage release = new ACLMessage(ACLMessage.INFORM);
+        release.setConversationId("release");
+        for (String name : names) {
+            release.addReceiver(leased.remove(name));
+        }
+        send(release);
+    }
+
+    /**
+     * Start the session's next game on the leased players (an init message
+     * resets each of them), or end the session when there is none.
+     */
+    private void startNextGame() {
+        if (!session.nextGame().getAsBoolean()) {
+            releasePlayers();
+            doDelete();
+            return;
+        }
+
+        gameNumber++;
+        turnCount = 0;
+        playerNames.clear();
+        players.clear();
+        journalEvents.clear();
+
+        // The session's first game may continue a snapshot
+        GameSnapshot snapshot = gameNumber == 1 ? session.restore() : null;
+        if (snapshot != null) {
+            gameSeed = snapshot.seed();
+            placement = new GameRandom(snapshot.randomState());
+            grid = snapshot.grid();
+            turnCount = snapshot.turn();
+        } else {
+            gameSeed = session.seeds().getAsLong();
+            placement = GameRandom.stream(gameSeed, "placement");
+            initGrid();
+        }
+        if (session.gui()) {
+            if (gui instanceof GameGUI previous) previous.dispose();
+            gui = new GameGUI(grid);
+        }
+        positions = new SpatialIndex(width, height, settings.numPlayers());
+        status = new GameStatus(settings, settings.numPlayers());
+        board = settings.sharedReputation() ? new Reputation() : null;
+        if (snapshot != null) {
+            restorePlayers(leased, snapshot);
+            addBehaviour(new GameBehaviour(snapshot.nextSeat()));
+        } else {
+            assignPlayers(leased);
+            addBehaviour(new GameBehaviour(0));
+        }
+    }
+
+    /**
+     * The session comes either as a GameSession object (StartJADE) or as
+     * "key=value" / properties file strings (e.g. from the JADE command line),
+     * where "session=ID" names the session, "seed=N" seeds its game and the
+     * rest are game settings. Such a session plays one game, shows its window
+     * and ends the JVM when the game is over.
+     */
+    private static GameSession readSession(Object[] args) {
+        if (args != null && args.length > 0 && args[0] instanceof GameSession s) {
+            return s;
+        }
+        String id = GameSession.DEFAULT_ID;
+        java.util.function.LongSupplier seeds = GameSession.randomSeeds();
+        List<String> strings = new ArrayList<>();
+        for (Object arg : args == null ? new Object[0] : args) {
+            String s = String.valueOf(arg);
+            if (s.startsWith("session=")) {
+                id = s.substring("session=".length());
+            } else if (s.startsWith("seed=")) {
+                long seed = Long.parseLong(s.substring("seed=".length()));
+                seeds = () -> seed;
+            } else {
+                strings.add(s);
+            }
+        }
+        try {
+            return new GameSession(id, GameSettings.fromArgs(strings.toArray(new String[0])), true, GameSession.oneGame(),
+                    result -> System.exit(0), seeds, null);
+        } catch (java.io.IOException e) {
+            throw new IllegalArgumentException("Cannot read game settings: " + e.getMessage(), e);
+        }
+    }
+
+    private void openJournal() {
+        String file = System.getProperty(GameConfig.JOURNAL_PROPERTY);
+        if (file == null) return;
+        synchronized (MainAgent.class) {
+            if (sharedJournal == null) {
+                try {
+                    sharedJournal = GameJournal.open(java.nio.file.Path.of(file));
+                } catch (java.io.IOException e) {
+                    log.error("Cannot open journal {}: {}", file, e.getMessage());
+                    return;
+                }
+            }
+            journal = sharedJournal;
+        }
+        log.info("Recording the game to {}", file);
+    }
+
+    private void startMetricsSnapshots() {
+        String file = System.getProperty(GameConfig.METRICS_PROPERTY);
+        if (file == null) return;
+        metrics.startSnapshots(java.nio.file.Path.of(file), GameConfig.METRICS_INTERVAL_MS);
+        log.info("Writing metrics to {}", file);
+    }
+
+    private void openCheckpoints() {
+        String file = System.getProperty(GameConfig.CHECKPOINT_PROPERTY);
+        if (file == null) return;
+        checkpointFile = java.nio.file.Path.of(session.id().equals(GameSession.DEFAULT_ID) ? file : file + "." + session.id());
+        checkpointInterval = Math.max(1, Integer.getInteger(GameConfig.CHECKPOINT_INTERVAL_PROPERTY, GameConfig.CHECKPOINT_INTERVAL));
+        log.info("Checkpointing every {} turns to {}", checkpointInterval, checkpointFile);
+    }
+
+    private void record(GameJournal.Event event) {
+        if (journal != null) journalEvents.add(event);
+    }
+
+    // One more blocked turn for the player
+    private void recordBlock(PlayerData pdata) {
+        pdata.block();
+        record(new GameJournal.Block(pdata.seat, pdata.blockedTurns));
+    }
+
+    // Write the finished game to the journal
+    private void flushJournal() {
+        if (journal == null) return;
+        try {
+            journal.appendAll(journalEvents);
+        } catch (java.io.UncheckedIOException e) {
+            log.error("Cannot write journal: {}", e.getCause().getMessage());
+        }
+        journalEvents.clear();
+    }
+
+    // What the GameEngine would report for the same game
+    private GameResult result(GameResult.Outcome outcome, int winner) {
+        List<GameResult.PlayerStats> stats = new ArrayList<>(playerNames.size());
+        for (String name : playerNames) {
+            PlayerData p = players.get(name);
+            stats.add(new GameResult.PlayerStats(name, p.isAtGoal(), p.moves, p.totalBlocked,
+                    p.tradesProposed, p.tradesAccepted, p.betrayals, p.tokens.size(), status.rank(p.seat)));
+        }
+        return new GameResult(gameSeed, outcome, winner >= 0 ? playerNames.get(winner) : null, turnCount, stats);
+    }
+
+    // The board of GameEngine's game with the same seed
+    private void initGrid() {
+        grid = Grid.generate(width, height, colors, GameRandom.stream(gameSeed, "grid").nextLong());
+    }
+
+    // Seats go to the players in name order, placed as GameEngine places them for the same seed
+    private void assignPlayers(Map<String, AID> registered) {
+        GameRandom rand = placement;
+        Set<String> usedPositions = new HashSet<>();
+
+        playerNames.addAll(registered.keySet());
+        log.info("Game {}: players {}, seed {}", gameNumber, playerNames, gameSeed);
+        record(new GameJournal.GameStart(gameSeed, playerNames, settings, grid));
+
+        for (String name : playerNames) {
+            int startX, startY, goalX, goalY;
+            String startPos;
+
+            // Ensure unique start position
+            do {
+                startX = rand.nextInt(width);
+                startY = rand.nextInt(height);
+                startPos = startX + "," + startY;
+            } while (usedPositions.contains(startPos));
+
+            usedPositions.add(startPos);
+
+            // Ensure goal position different from start
+            do {
+                goalX = rand.nextInt(width);
+                goalY = rand.nextInt(height);
+            } while (goalX == startX && goalY == startY);
+
+            // Assign tokens
+            TokenInventory tokens = new TokenInventory();
+            for (int t = 0; t < settings.tokensPerPlayer(); t++) {
+                tokens.give(colors[rand.nextInt(colors.length)]);
+            }
+
+            seat(new PlayerData(name, registered.get(name), players.size(), startX, startY, goalX, goalY, tokens));
+        }
+    }
+
+    /**
+     * Seat the players as in the snapshot, seat by seat, and hand each one
+     * its own part of the state (strategy, blocked streak, trade memory,
+     * route) in a "restore" message after its init message. Names in the
+     * trade memories are mapped from the snapshot's players to ours.
+     */
+    private void restorePlayers(Map<String, AID> registered, GameSnapshot snapshot) {
+        playerNames.addAll(registered.keySet());
+        log.info("Game {}: players {}, seed {}, restored at turn {}", gameNumber, playerNames, gameSeed, snapshot.turn());
+        record(new GameJournal.GameStart(gameSeed, playerNames, settings, grid));
+
+        Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < playerNames.size(); i++) {
+            names.put(snapshot.players().get(i).name(), playerNames.get(i));
+        }
+        for (String name : playerNames) {
+            GameSnapshot.PlayerState state = snapshot.players().get(players.size());
+            PlayerData playerData = new PlayerData(name, registered.get(name), players.size(), state.x(), state.y(),
+                    state.goalX(), state.goalY(), new TokenInventory(state.tokens()));
+            playerData.blockedTurns = state.blockedTurns();
+            playerData.moves = state.moves();
+            playerData.totalBlocked = state.totalBlocked();
+            playerData.tradesProposed = state.tradesProposed();
+            playerData.tradesAccepted = state.tradesAccepted();
+            playerData.betrayals = state.betrayals();
+            seat(playerData);
+            status.restore(playerData.seat, state.rank(), playerData.blockedTurns);
+
+            TradeMemory memory = state.memory().renamed(names);
+            ACLMessage restoreMsg = new ACLMessage(ACLMessage.INFORM);
+            restoreMsg.addReceiver(playerData.aid);
+            restoreMsg.setConversationId("restore");
+            restoreMsg.setByteSequenceContent(MessageCodec.encode(new MessageCodec.AgentState(state.strategy(),
+                    state.blockedTurns(), state.randomState(), memory, state.route())));
+            send(restoreMsg);
+        }
+        if (board != null && snapshot.board() != null) board = snapshot.board().renamed(names);
+    }
+
+    // Add a player to the game and send it its init message
+    private void seat(PlayerData playerData) {
+        players.put(playerData.name, playerData);
+        positions.place(playerData.seat, grid.index(playerData.x, playerData.y));
+        record(new GameJournal.PlayerInit(playerData.seat, playerData.x, playerData.y, playerData.goalX, playerData.goalY, playerData.tokens));
+        gui.updatePlayerPosition(playerData.name, playerData.x, playerData.y, playerData.goalX, playerData.goalY);
+
+        // Send init message including all player names
+        ACLMessage setupMsg = new ACLMessage(ACLMessage.INFORM);
+        setupMsg.addReceiver(playerData.aid);
+        setupMsg.setConversationId("init");
+
+        // Start, goal, tokens, player list, settings and the board (see MessageCodec.Init)
+        setupMsg.setByteSequenceContent(MessageCodec.encode(playerData.toInit(playerNames, settings, grid, gameSeed)));
+
+        send(setupMsg);
+    }
+
+    /**
+     * Turn loop as a non-blocking state machine: send "your-turn", wait for
+     * the matching "turn-result" (by in-reply-to) until the turn deadline,
+     * then start the next turn right away. The behaviour only ever block()s,
+     * so the agent stays responsive. Pacing for human viewers (turnDelayMs)
+     * is optional and done by a WakerBehaviour, see nextTurn().
+     *
+     * With simultaneousRounds the request goes to every player at once and
+     * the round is resolved (RoundRules) when all answers are in or the
+     * deadline passes; each player then gets a "round-result" with its
+     * confirmed position and tokens. With tradeClearing, blocked players send
+     * a trade order instead of proposing to each other, and all orders of the
+     * round are matched at once (TradeClearing) before the round results go out.
+     *
+     * With checkpoints on, every checkpointInterval turns the players are
+     * asked for their own state ("checkpoint") and the game is written as a
+     * GameSnapshot before the next turn.
+     */
+    private class GameBehaviour extends Behaviour {
+
+        private static final int SEND_TURN = 0, AWAIT_RESULT = 1, AWAIT_ROUND = 2, PAUSE = 3, AWAIT_CHECKPOINT = 4;
+
+        private final MessageTemplate resultTemplate = MessageTemplate.MatchConversationId("turn-result");
+        private final MessageTemplate checkpointTemplate = MessageTemplate.and(
+                MessageTemplate.MatchConversationId("checkpoint"),
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM));
+
+        private boolean gameOver = false;
+        private int state = SEND_TURN;
+        private int currentPlayerIndex = 0; // index in playerNames list, start from 0
+
+        private String currentPlayer;
+        private String replyWith;
+        private long turnStart;
+        private long turnSentNanos;  // for the round-trip latency in GameMetrics
+        private long deadline;
+        private final Map<String, MessageCodec.TurnResult> roundResults = new HashMap<>();
+        private final Map<String, MessageCodec.AgentState> agentStates = new HashMap<>();
+
+        // firstSeat moves first (sequential turns); a restored game goes on with the snapshot's next seat
+        GameBehaviour(int firstSeat) {
+            currentPlayerIndex = firstSeat;
+        }
+
+        @Override
+        public void action() {
+            if (gameOver) return;
+            metrics.coordinatorQueueDepth(getCurQueueSize());
+
+            switch (state) {
+                case SEND_TURN -> {
+                    if (settings.simultaneousRounds()) sendRound();
+                    else sendTurn();
+                }
+                case AWAIT_RESULT -> awaitResult();
+                case AWAIT_ROUND -> awaitRound();
+                case AWAIT_CHECKPOINT -> awaitCheckpoint();
+                case PAUSE -> block(); // until the pacing WakerBehaviour restarts us
+                default -> { }
+            }
+        }
+
+        private void sendTurn() {
+            turnCount++;
+            currentPlayer = playerNames.get(currentPlayerIndex);
+            log.debug("=== Turn {}: {}'s move ===", turnCount, currentPlayer);
+
+            // The player plans its own step with its PathPlanner
+            replyWith = "g" + gameNumber + "-turn-" + turnCount;
+            ACLMessage turnMsg = new ACLMessage(ACLMessage.REQUEST);
+            turnMsg.addReceiver(players.get(currentPlayer).aid);
+            turnMsg.setConversationId("your-turn");
+            turnMsg.setReplyWith(replyWith);
+            turnMsg.setByteSequenceContent(MessageCodec.encode(
+                    new MessageCodec.TurnRequest(turnCount, partners(players.get(currentPlayer)))));
+            send(turnMsg);
+            turnSentNanos = System.nanoTime();
+            record(new GameJournal.TurnStart(turnCount, currentPlayerIndex));
+
+            turnStart = System.currentTimeMillis();
+            deadline = turnStart + settings.turnTimeoutMs();
+            state = AWAIT_RESULT;
+        }
+
+        private void awaitResult() {
+            ACLMessage reply;
+            while ((reply = receive(resultTemplate)) != null) {
+                if (replyWith.equals(reply.getInReplyTo())) {
+                    metrics.turnCompleted(System.nanoTime() - turnSentNanos);
+                    applyResult(currentPlayer, MessageCodec.decode(reply.getByteSequenceContent(), MessageCodec.TurnResult.class), true);
+                    endTurn();
+                    return;
+                }
+                // Answer to a turn that already timed out: only bring our copy of that player up to date
+                String sender = reply.getSender().getLocalName();
+                if (players.containsKey(sender) && isThisGame(reply)) {
+                    log.warn("[Late] {} answered {} after its timeout", sender, reply.getInReplyTo());
+                    applyResult(sender, MessageCodec.decode(reply.getByteSequenceContent(), MessageCodec.TurnResult.class), false);
+                }
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining > 0) {
+                block(remaining);
+                return;
+            }
+
+            // No answer in time: the turn counts as blocked and the game moves on
+            PlayerData pdata = players.get(currentPlayer);
+            recordBlock(pdata);
+            metrics.turnTimedOut();
+            log.warn("[Timeout] {} did not answer within {} ms ({})",
+                    currentPlayer, settings.turnTimeoutMs(), pdata.blockedTurns);
+            endTurn();
+        }
+
+        private void sendRound() {
+            turnCount++;
+            log.debug("=== Round {} ===", turnCount);
+
+            replyWith = "g" + gameNumber + "-round-" + turnCount;
+            ACLMessage turnMsg = new ACLMessage(ACLMessage.REQUEST);
+            turnMsg.setConversationId("your-turn");
+            turnMsg.setReplyWith(replyWith);
+            if (settings.tradeRadius() == 0) {
+                // The same request for everyone still playing
+                for (String name : playerNames) {
+                    PlayerData pdata = players.get(name);
+                    if (status.inPlay(pdata.seat)) turnMsg.addReceiver(pdata.aid);
+                }
+                turnMsg.setByteSequenceContent(MessageCodec.encode(new MessageCodec.TurnRequest(turnCount)));
+                send(turnMsg);
+            } else {
+                // Everyone gets its own partners
+                for (String name : playerNames) {
+                    PlayerData pdata = players.get(name);
+                    if (!status.inPlay(pdata.seat)) continue;
+                    turnMsg.clearAllReceiver();
+                    turnMsg.addReceiver(pdata.aid);
+                    turnMsg.setByteSequenceContent(MessageCodec.encode(new MessageCodec.TurnRequest(turnCount, partners(pdata))));
+                    send(turnMsg);
+                }
+            }
+            turnSentNanos = System.nanoTime();
+            for (int i = 0; i < playerNames.size(); i++) {
+                if (status.inPlay(i)) record(new GameJournal.TurnStart(turnCount, i));
+            }
+
+            roundResults.clear();
+            turnStart = System.currentTimeMillis();
+            deadline = turnStart + settings.turnTimeoutMs();
+            state = AWAIT_ROUND;
+        }
+
+        private void awaitRound() {
+            ACLMessage reply;
+            while ((reply = receive(resultTemplate)) != null) {
+                String sender = reply.getSender().getLocalName();
+                if (!players.containsKey(sender) || !isThisGame(reply)) continue;
+
+                MessageCodec.TurnResult result = MessageCodec.decode(reply.getByteSequenceContent(), MessageCodec.TurnResult.class);
+                if (replyWith.equals(reply.getInReplyTo())) {
+                    metrics.turnCompleted(System.nanoTime() - turnSentNanos);
+                    roundResults.put(sender, result);
+                } else {
+                    log.warn("[Late] {} answered {} after its timeout", sender, reply.getInReplyTo());
+                    applyResult(sender, result, false);
+                }
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (roundResults.size() < status.active() && remaining > 0) {
+                block(remaining);
+                return;
+            }
+            resolveRound();
+        }
+
+        // Apply all answers of the round at once; contested cells go by RoundRules priority
+        private void resolveRound() {
+            List<TradeClearing.Order> orders = new ArrayList<>();
+            int n = playerNames.size();
+            int[] targets = new int[n];
+            for (int i = 0; i < n; i++) {
+                MessageCodec.TurnResult result = roundResults.get(playerNames.get(i));
+                PlayerData pdata = players.get(playerNames.get(i));
+                targets[i] = -1;
+                if (result == null) continue;
+
+                int distance = Math.abs(result.x() - pdata.x) + Math.abs(result.y() - pdata.y);
+                if (distance == 1 && grid.contains(result.x(), result.y())) {
+                    targets[i] = grid.index(result.x(), result.y());
+                } else if (distance > 1 || !grid.contains(result.x(), result.y())) {
+                    log.warn("[Invalid move] {} to ({},{}) ignored", pdata.name, result.x(), result.y());
+                }
+            }
+
+            TokenInventory[] refunds = new TokenInventory[n];
+            boolean[] granted = settings.exclusiveCells()
+                    ? RoundRules.resolveMoves(targets, turnCount, positions::occupied)
+                    : RoundRules.resolveMoves(targets, turnCount);
+            for (int i : RoundRules.priorityOrder(n, turnCount)) {
+                String name = playerNames.get(i);
+                PlayerData pdata = players.get(name);
+                MessageCodec.TurnResult result = roundResults.get(name);
+                if (!status.inPlay(i)) continue;
+
+                if (result == null) {
+                    recordBlock(pdata);
+                    metrics.turnTimedOut();
+                    log.warn("[Timeout] {} did not answer within {} ms ({})",
+                            name, settings.turnTimeoutMs(), pdata.blockedTurns);
+                    continue;
+                }
+
+                TokenInventory tokens = result.tokens();
+                refunds[i] = new TokenInventory();
+                if (granted[i]) {
+                    pdata.moveTo(result.x(), result.y());
+                    positions.place(pdata.seat, targets[i]);
+                    record(new GameJournal.Move(pdata.seat, pdata.x, pdata.y, grid.colorAt(pdata.x, pdata.y)));
+                } else if (targets[i] >= 0) {
+                    // Lost the cell to a player with higher priority, or it is taken: stays and gets its token back
+                    tokens = new TokenInventory(tokens);
+                    tokens.give(grid.colorAt(targets[i]));
+                    refunds[i].give(grid.colorAt(targets[i]));
+                    log.debug("[Conflict] {} yields ({},{})", name, result.x(), result.y());
+                }
+                pdata.setTokens(tokens);
+
+                // A player that did not step could not pay (one that lost its cell just waits, as in GameEngine)
+                if (targets[i] < 0) {
+                    recordBlock(pdata);
+                    log.debug("[Blocked] {} ({})", name, pdata.blockedTurns);
+                }
+                recordTrade(pdata, result.trade());
+                MessageCodec.TradeOrder order = result.order();
+                if (order != null && targets[i] < 0 && settings.tradeClearing()) {
+                    pdata.tradesProposed++;
+                    orders.add(new TradeClearing.Order(i, order.need(), order.spare()));
+                }
+            }
+
+            // One pass over every order of the round; each player gets its trade with its round result
+            MessageCodec.TradeReport[] cleared = clearTrades(orders);
+
+            for (int i : RoundRules.priorityOrder(n, turnCount)) {
+                String name = playerNames.get(i);
+                PlayerData pdata = players.get(name);
+                MessageCodec.TurnResult result = roundResults.get(name);
+                if (result == null) continue;
+
+                boolean stillPlaying = result.stillPlaying() || cleared[i] != null;
+
+                // Confirm the outcome, so the player continues from where it really is. Only the refund and the
+                // cleared trade are sent: the player may have traded since its turn result, so our copy is stale
+                ACLMessage confirm = new ACLMessage(ACLMessage.INFORM);
+                confirm.addReceiver(pdata.aid);
+                confirm.setConversationId("round-result");
+                confirm.setInReplyTo(replyWith);
+                confirm.setByteSequenceContent(MessageCodec.encode(
+                        new MessageCodec.TurnResult(pdata.x, pdata.y, refunds[i], stillPlaying, cleared[i])));
+                send(confirm);
+            }
+
+            for (PlayerData pdata : players.values()) {
+                gui.updatePlayerPosition(pdata.name, pdata.x, pdata.y, pdata.goalX, pdata.goalY);
+            }
+
+            if (checkGameOver(RoundRules.priorityOrder(n, turnCount))) return;
+            nextTurn();
+        }
+
+        /**
+         * Match the round's orders and hand the tokens over in our copies of
+         * the players (they take them from their round results). Returns each
+         * seat's filled order as a TradeReport, or null.
+         */
+        private MessageCodec.TradeReport[] clearTrades(List<TradeClearing.Order> orders) {
+            MessageCodec.TradeReport[] cleared = new MessageCodec.TradeReport[playerNames.size()];
+            if (orders.isEmpty()) return cleared;
+
+            // Only players within tradeRadius of each other trade (see GameConfig.TRADE_RADIUS)
+            List<TradeClearing.Trade> trades = settings.tradeRadius() == 0 ? TradeClearing.match(orders)
+                    : TradeClearing.match(orders, (from, to) -> positions.distance(from, to) <= settings.tradeRadius());
+            TokenColor[] gave = new TokenColor[playerNames.size()];
+            for (TradeClearing.Trade trade : trades) gave[trade.from()] = trade.color();
+            for (TradeClearing.Trade trade : trades) {
+                PlayerData giver = players.get(playerNames.get(trade.from()));
+                PlayerData taker = players.get(playerNames.get(trade.to()));
+                giver.tokens.take(trade.color());
+                taker.tokens.give(trade.color());
+                taker.tradesAccepted++;
+                cleared[trade.to()] = new MessageCodec.TradeReport(giver.name, trade.color(), gave[trade.to()], true, false);
+                record(new GameJournal.TradeProposed(taker.seat, giver.seat, trade.color(), gave[trade.to()]));
+                record(new GameJournal.TradeAccepted(taker.seat, giver.seat, trade.color()));
+            }
+            for (int i = 0; i < orders.size(); i++) {
+                metrics.tradeAnswered(cleared[orders.get(i).seat()] != null);
+            }
+            log.debug("[Clearing] {} orders, {} filled", orders.size(), trades.size());
+            return cleared;
+        }
+
+        private void applyResult(String name, MessageCodec.TurnResult result, boolean countTurn) {
+            PlayerData pdata = players.get(name);
+
+            // Only accept a stay or a single step inside the board
+            int distance = Math.abs(result.x() - pdata.x) + Math.abs(result.y() - pdata.y);
+            boolean moved = distance == 1 && grid.contains(result.x(), result.y());
+            boolean waits = false;
+            TokenInventory tokens = result.tokens();
+            if (moved && settings.exclusiveCells() && positions.occupied(grid.index(result.x(), result.y()))) {
+                // The cell is taken: the player stays, gets its token back and is told so (it is not blocked)
+                moved = false;
+                waits = true;
+                TokenInventory refund = new TokenInventory();
+                refund.give(grid.colorAt(result.x(), result.y()));
+                tokens = new TokenInventory(tokens);
+                tokens.give(grid.colorAt(result.x(), result.y()));
+                log.debug("[Occupied] {} stays off ({},{})", name, result.x(), result.y());
+                ACLMessage confirm = new ACLMessage(ACLMessage.INFORM);
+                confirm.addReceiver(pdata.aid);
+                confirm.setConversationId("round-result");
+                confirm.setByteSequenceContent(MessageCodec.encode(
+                        new MessageCodec.TurnResult(pdata.x, pdata.y, refund, result.stillPlaying(), null)));
+                send(confirm);
+            }
+            if (moved) {
+                pdata.moveTo(result.x(), result.y());
+                positions.place(pdata.seat, grid.index(pdata.x, pdata.y));
+                record(new GameJournal.Move(pdata.seat, pdata.x, pdata.y, grid.colorAt(pdata.x, pdata.y)));
+            } else if (distance > 1 || !grid.contains(result.x(), result.y())) {
+                log.warn("[Invalid move] {} to ({},{}) ignored", name, result.x(), result.y());
+            }
+            pdata.setTokens(tokens);
+
+            // A player that did not step could not pay: one more blocked turn in a row, as in GameEngine
+            if (countTurn && !moved && !waits) {
+                recordBlock(pdata);
+                log.debug("[Blocked] {} ({})", name, pdata.blockedTurns);
+            }
+            recordTrade(pdata, result.trade());
+
+            gui.updatePlayerPosition(pdata.name, pdata.x, pdata.y, pdata.goalX, pdata.goalY);
+        }
+
+        // Who the player may propose to: null for anyone, or those within tradeRadius (GameConfig.TRADE_RADIUS)
+        private List<String> partners(PlayerData pdata) {
+            if (settings.tradeRadius() == 0) return null;
+            List<String> names = new ArrayList<>();
+            for (int seat : positions.within(pdata.seat, settings.tradeRadius())) {
+                names.add(playerNames.get(seat));
+            }
+            return names;
+        }
+
+        // The trade a blocked player reported with its turn result
+        private void recordTrade(PlayerData pdata, MessageCodec.TradeReport trade) {
+            if (trade == null) return;
+            pdata.tradesProposed++;
+            if (trade.accepted()) pdata.tradesAccepted++;
+            if (trade.betrayed()) pdata.betrayals++;
+            if (board != null && trade.accepted()) {
+                int round = Reputation.roundOf(settings, turnCount);
+                if (trade.betrayed()) board.betrayal(pdata.name, round); else board.honest(pdata.name, round);
+            }
+            if (journal == null || !players.containsKey(trade.partner())) return;
+
+            int partner = players.get(trade.partner()).seat;
+            record(new GameJournal.TradeProposed(pdata.seat, partner, trade.need(), trade.offer()));
+            if (!trade.accepted()) {
+                record(new GameJournal.TradeRejected(pdata.seat, partner));
+                return;
+            }
+            record(new GameJournal.TradeAccepted(pdata.seat, partner, trade.need()));
+            if (trade.betrayed()) {
+                record(new GameJournal.Betrayal(pdata.seat, partner));
+            }
+        }
+
+        private void endTurn() {
+            if (checkGameOver(new int[] { currentPlayerIndex })) return;
+
+            // Move to the next player still in the game
+            currentPlayerIndex = status.next(currentPlayerIndex);
+            nextTurn();
+        }
+
+        /**
+         * Rank the given players (in order) that reached their goals and
+         * eliminate those blocked too long, then end the game when GameStatus
+         * says it is over: enough players arrived, nobody is left or the turn
+         * limit is reached.
+         */
+        private boolean checkGameOver(int[] moved) {
+            for (int i : moved) {
+                String name = playerNames.get(i);
+                if (!status.inPlay(i)) continue;
+                status.played(i, players.get(name).isAtGoal(), players.get(name).blockedTurns);
+                if (status.rank(i) > 0) {
+                    log.info("🏁 {} reached the goal! 🎉 (#{})", name, status.rank(i));
+                } else if (status.isEliminated(i)) {
+                    log.info("[Eliminated] {} was blocked {} turns in a row", name, settings.maxBlockedTurns());
+                }
+            }
+
+            GameResult.Outcome outcome = status.outcome(turnCount);
+            if (outcome == null) return false;
+
+            if (outcome == GameResult.Outcome.WIN) {
+                List<String> ranking = result(outcome, status.winner()).ranking();
+                String text = ranking.size() == 1 ? ranking.get(0) + " has reached the goal! 🎯 🎉" : "Ranking: " + rankingText(ranking);
+                if (ranking.size() > 1) log.info("🏆 {}", rankingText(ranking));
+                JLabel label = new JLabel(text, SwingConstants.CENTER);
+                label.setFont(new Font("Segoe UI", Font.BOLD, 18));
+                label.setForeground(new Color(34, 139, 34));
+
+                endGame(outcome, status.winner(), label, "🎉 Game Ended", JOptionPane.PLAIN_MESSAGE);
+            } else if (outcome == GameResult.Outcome.DRAW) {
+                log.info(">>> All players are blocked for {} turns in a row. Game Over.", settings.maxBlockedTurns());
+
+                JLabel blockedLabel = new JLabel("All players are blocked for " + settings.maxBlockedTurns() + " turns.\nIt's a draw.", SwingConstants.CENTER);
+                blockedLabel.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+                blockedLabel.setForeground(Color.RED);
+
+                endGame(outcome, -1, blockedLabel, "Game Over - Draw", JOptionPane.WARNING_MESSAGE);
+            } else {
+                log.info(">>> Nobody reached the goal in {} turns. Game Over.", settings.maxGameTurns());
+
+                JLabel limitLabel = new JLabel("Nobody reached the goal in " + settings.maxGameTurns() + " turns.", SwingConstants.CENTER);
+                limitLabel.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+                limitLabel.setForeground(Color.RED);
+
+                endGame(outcome, -1, limitLabel, "Game Over - Turn Limit", JOptionPane.WARNING_MESSAGE);
+            }
+            return true;
+        }
+
+        // "1. Player2  2. Player4 ..."
+        private String rankingText(List<String> ranking) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < ranking.size(); i++) {
+                if (i > 0) text.append("  ");
+                text.append(i + 1).append(". ").append(ranking.get(i));
+            }
+            return text.toString();
+        }
+
+        /**
+         * Journal the end, tell the players, show the outcome (when the
+         * session has a GUI), hand the result to the session and go on with
+         * its next game.
+         */
+        private void endGame(GameResult.Outcome outcome, int winner, JLabel message, String title, int messageType) {
+            record(new GameJournal.GameEnd(outcome, winner, turnCount));
+            flushJournal();
+
+            ACLMessage over = new ACLMessage(ACLMessage.INFORM);
+            for (PlayerData pdata : players.values()) {
+                over.addReceiver(pdata.aid);
+            }
+            over.setConversationId("game-over");
+            send(over);
+
+            if (session.gui()) {
+                JOptionPane.showMessageDialog(null, message, title, messageType);
+            }
+
+            gameOver = true;
+            session.onEnd().accept(result(outcome, winner));
+            startNextGame();
+        }
+
+        // Answers from an earlier game of the session are dropped
+        private boolean isThisGame(ACLMessage reply) {
+            String inReplyTo = reply.getInReplyTo();
+            return inReplyTo != null && inReplyTo.startsWith("g" + gameNumber + "-");
+        }
+
+        // Checkpoint when one is due, then start the next turn
+        private void nextTurn() {
+            if (checkpointFile != null && turnCount % checkpointInterval == 0) {
+                requestCheckpoint();
+                return;
+            }
+            pace();
+        }
+
+        // Ask every player for its own state; the answers arrive as "checkpoint" INFORMs
+        private void requestCheckpoint() {
+            replyWith = "g" + gameNumber + "-checkpoint-" + turnCount;
+            ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+            for (String name : playerNames) {
+                request.addReceiver(players.get(name).aid);
+            }
+            request.setConversationId("checkpoint");
+            request.setReplyWith(replyWith);
+            request.setByteSequenceContent(MessageCodec.encode(new MessageCodec.TurnRequest(turnCount)));
+            send(request);
+
+            agentStates.clear();
+            deadline = System.currentTimeMillis() + settings.turnTimeoutMs();
+            state = AWAIT_CHECKPOINT;
+        }
+
+        private void awaitCheckpoint() {
+            ACLMessage reply;
+            while ((reply = receive(checkpointTemplate)) != null) {
+                if (replyWith.equals(reply.getInReplyTo())) {
+                    agentStates.put(reply.getSender().getLocalName(),
+                            MessageCodec.decode(reply.getByteSequenceContent(), MessageCodec.AgentState.class));
+                }
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (agentStates.size() < playerNames.size() && remaining > 0) {
+                block(remaining);
+                return;
+            }
+            if (agentStates.size() < playerNames.size()) {
+                // A snapshot without some player's state could not be continued faithfully
+                log.warn("[Checkpoint] only {} of {} players answered, turn {} not saved",
+                        agentStates.size(), playerNames.size(), turnCount);
+            } else {
+                writeCheckpoint();
+            }
+            pace();
+        }
+
+        private void writeCheckpoint() {
+            List<GameSnapshot.PlayerState> states = new ArrayList<>(playerNames.size());
+            for (String name : playerNames) {
+                PlayerData p = players.get(name);
+                MessageCodec.AgentState agent = agentStates.get(name);
+                states.add(new GameSnapshot.PlayerState(name, agent.strategy(), p.x, p.y, p.goalX, p.goalY,
+                        new TokenInventory(p.tokens), p.blockedTurns, p.moves, p.totalBlocked,
+                        p.tradesProposed, p.tradesAccepted, p.betrayals, agent.randomState(), agent.memory(), agent.route(),
+                        status.rank(p.seat)));
+            }
+            // Rounds always start with all players; sequential turns go on with the next seat
+            int nextSeat = settings.simultaneousRounds() ? 0 : currentPlayerIndex;
+            try {
+                new GameSnapshot(settings, gameSeed, placement.state(), turnCount, nextSeat, grid, states,
+                        board == null ? null : new Reputation(board)).write(checkpointFile);
+                log.info("[Checkpoint] turn {} saved to {}", turnCount, checkpointFile);
+            } catch (java.io.IOException e) {
+                log.error("Cannot write checkpoint {}: {}", checkpointFile, e.getMessage());
+            }
+        }
+
+        /**
+         * Replay pacing: with turnDelayMs > 0 the next turn starts no earlier
+         * than that long after this one started (so a slow answer is not
+         * delayed twice); with 0 the game runs at full speed.
+         */
+        private void pace() {
+            long remaining = turnStart + settings.turnDelayMs() - System.currentTimeMillis();
+            if (remaining <= 0) {
+                state = SEND_TURN;
+                return;
+            }
+
+            state = PAUSE;
+            myAgent.addBehaviour(new WakerBehaviour(myAgent, remaining) {
+                @Override
+                protected void onWake() {
+                    state = SEND_TURN;
+                    GameBehaviour.this.restart();
+                }
+            });
+        }
+
+        @Override
+        public boolean done() {
+            return gameOver;
+        }
+    }
+
+    // Our copy of a player's state; the blocked streak is what elimination goes by
+    private static class PlayerData {
+        private final String name;
+        private final AID aid;    // from the DF; the player may live in another container
+        private final int seat;   // index in playerNames
+        private final int goalX, goalY;
+        private int x, y;
+        private TokenInventory tokens;
+        private int blockedTurns = 0;   // blocked turns in a row (timeouts count), like GameEngine's
+
+        // Totals for the GameResult
+        private int moves, totalBlocked, tradesProposed, tradesAccepted, betrayals;
+
+        public PlayerData(String name, AID aid, int seat, int startX, int startY, int goalX, int goalY, TokenInventory tokens) {
+            this.name = name;
+            this.aid = aid;
+            this.seat = seat;
+            this.x = startX;
+            this.y = startY;
+            this.goalX = goalX;
+            this.goalY = goalY;
+            this.tokens = tokens;
+        }
+
+        public boolean isAtGoal() {
+            return x == goalX && y == goalY;
+        }
+
+        public void block() {
+            blockedTurns++;
+            totalBlocked++;
+            GameMetrics.get().blockedStreak(name, blockedTurns);
+        }
+
+        // Step to (x, y), which ends a blocked streak
+        public void moveTo(int x, int y) {
+            this.x = x;
+            this.y = y;
+            moves++;
+            if (blockedTurns == 0) return;
+            blockedTurns = 0;
+            GameMetrics.get().blockedStreak(name, 0);
+        }
+
+        public void setTokens(TokenInventory tokens) { this.tokens = tokens; }
+
+        // Init message for this player
+        public MessageCodec.Init toInit(java.util.List<String> playerNames, GameSettings settings, Grid grid, long seed) {
+            return new MessageCodec.Init(x, y, goalX, goalY, tokens, playerNames, settings, grid, seed);
+        }
+    }
+}
@@ -0,0 +1,554 @@
+    package gridgame.agents;
+
+    import jade.core.Agent;
+    import jade.lang.acl.ACLMessage;
+    import jade.lang.acl.MessageTemplate;
+    import jade.core.behaviours.CyclicBehaviour;
+    import jade.core.AID;
+    import jade.domain.FIPAException;
+
+    import gridgame.GameLog;
+    import gridgame.GameMetrics;
+    import gridgame.GameRandom;
+    import gridgame.GameSettings;
+    import gridgame.Grid;
+    import gridgame.MessageCodec;
+    import gridgame.NegotiationStrategies;
+    import gridgame.NegotiationStrategy;
+    import gridgame.PathPlanner;
+    import gridgame.Reputation;
+    import gridgame.TokenColor;
+    import gridgame.TokenInventory;
+    import gridgame.TradeClearing;
+    import gridgame.TradeMemory;
+
+    import java.util.*;
+
+    public class PlayerAgent extends Agent {
+
+        private int x, y;
+        private int goalX, goalY;
+        private int blockedTurns = 0;
+        private TokenInventory tokens = new TokenInventory();
+        private TradeMemory memory = new TradeMemory();
+        private java.util.List<String> otherPlayers = new ArrayList<>();
+        // The game session we play in (first agent argument; the pool until a MainAgent leases us),
+        // and trade partners' AIDs from the DF
+        private String session = PlayerDirectory.POOL;
+        private Map<String, AID> partners = new HashMap<>();
+        // How we trade (optional second argument, a NegotiationStrategies name); a restored
+        // game may hand us another one for that game
+        private NegotiationStrategy ownStrategy = NegotiationStrategies.DEFAULT;
+        private NegotiationStrategy strategy = ownStrategy;
+        // With sharedReputation: our copy of the session's reputation board (MainAgent, found in the DF),
+        // the round it is up to date with and the reply-with of the query in flight
+        private AID boardAgent;
+        private Reputation board;
+        private int boardSince;
+        private String boardQuery;
+
+        // Game settings and board, received with the init message
+        private GameSettings settings = GameSettings.defaults();
+        private Grid grid;
+        private PathPlanner planner;
+        // Our seat's stream of the game seed (GameRandom), for the betrayal draws
+        private GameRandom rand = new GameRandom(0);
+        private GameLog log;
+        private final GameMetrics metrics = GameMetrics.get();
+
+        @Override
+        protected void setup() {
+            log = GameLog.get(getLocalName());
+            Object[] args = getArguments();
+            if (args != null && args.length > 0) session = String.valueOf(args[0]);
+            try {
+                if (args != null && args.length > 1) ownStrategy = NegotiationStrategies.byName(String.valueOf(args[1]));
+                strategy = ownStrategy;
+            } catch (IllegalArgumentException e) {
+                log.error(e.getMessage());
+                doDelete();
+                return;
+            }
+            log.info("Starting in session {}, trading {}...", session, strategy.name());
+            try {
+                PlayerDirectory.register(this, session);
+            } catch (FIPAException e) {
+                log.error("Cannot register with the DF: {}", e.getMessage());
+                doDelete();
+                return;
+            }
+            addBehaviour(new MessageHandler());
+        }
+
+        @Override
+        protected void takeDown() {
+            PlayerDirectory.deregister(this);
+        }
+
+        // A player's AID from the DF, searching again for players we have not seen yet; null if not registered
+        private AID partner(String name) {
+            if (!partners.containsKey(name)) {
+                try {
+                    partners = PlayerDirectory.search(this, session);
+                } catch (FIPAException e) {
+                    log.warn("DF search failed: {}", e.getMessage());
+                }
+            }
+            return partners.get(name);
+        }
+
+        /**
+         * Handles requests as they come; a blocked turn's trade proposal is
+         * left pending and resolved when its reply (matched by in-reply-to)
+         * arrives or the trade times out, without blocking the agent.
+         */
+        private class MessageHandler extends CyclicBehaviour {
+
+            // Requests from the game and other players; trade replies are matched separately
+            private final MessageTemplate requestTemplate = MessageTemplate.or(
+                    anyConversation("init", "restore", "checkpoint", "your-turn", "round-result", "game-over", "lease", "release",
+                            "trade-payment", "reputation-scores"),
+                    MessageTemplate.and(
+                            MessageTemplate.MatchConversationId("negotiation"),
+                            MessageTemplate.MatchPerformative(ACLMessage.PROPOSE)));
+
+            // Proposal replies that are not for the pending trade (it timed out)
+            private final MessageTemplate staleReplyTemplate = MessageTemplate.and(
+                    MessageTemplate.MatchConversationId("negotiation"),
+                    MessageTemplate.not(MessageTemplate.MatchPerformative(ACLMessage.PROPOSE)));
+
+            private PendingTrade pending;
+            private int proposalCount = 0;
+
+            @Override
+            public void action() {
+                metrics.queueDepth(getLocalName(), getCurQueueSize());
+                if (pending != null) {
+                    ACLMessage response = receive(pending.template);
+                    if (response != null) {
+                        finishTrade(response);
+                    } else if (System.currentTimeMillis() >= pending.deadline) {
+                        finishTrade(null);
+                    }
+                }
+
+                // While a trade is pending, our next turn request waits in the queue
+                ACLMessage msg = receive(pending == null ? requestTemplate
+                        : MessageTemplate.and(requestTemplate, MessageTemplate.not(MessageTemplate.MatchConversationId("your-turn"))));
+                if (msg == null) {
+                    ACLMessage stale = receive(pending == null ? staleReplyTemplate
+                            : MessageTemplate.and(staleReplyTemplate, MessageTemplate.not(pending.template)));
+                    if (stale != null) {
+                        log.debug("Dropped late reply from {}", stale.getSender().getLocalName());
+                        return;
+                    }
+                    if (pending != null) {
+                        block(Math.max(1, pending.deadline - System.currentTimeMillis()));
+                    } else {
+                        block();
+                    }
+                    return;
+                }
+
+                switch (msg.getConversationId()) {
+                    case "init":
+                        handleInit(MessageCodec.decode(msg.getByteSequenceContent(), MessageCodec.Init.class));
+                        break;
+                    case "restore":
+                        handleRestore(MessageCodec.decode(msg.getByteSequenceContent(), MessageCodec.AgentState.class));
+                        break;
+                    case "checkpoint":
+                        handleCheckpoint(msg);
+                        break;
+                    case "your-turn":
+                        handleTurn(msg);
+                        break;
+                    case "round-result":
+                        handleRoundResult(MessageCodec.decode(msg.getByteSequenceContent(), MessageCodec.TurnResult.class));
+                        break;
+                    case "negotiation":
+                        handleProposal(msg);
+                        break;
+                    case "trade-payment":
+                        handlePayment(msg);
+                        break;
+                    case "reputation-scores":
+                        handleScores(msg);
+                        break;
+                    case "game-over":
+                        // A trade still open now can only be answered by a player of the next game
+                        pending = null;
+                        break;
+                    case "lease":
+                        handleLease(msg);
+                        break;
+                    case "release":
+                        handleRelease();
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            private MessageTemplate anyConversation(String... ids) {
+                MessageTemplate template = MessageTemplate.MatchConversationId(ids[0]);
+                for (int i = 1; i < ids.length; i++) {
+                    template = MessageTemplate.or(template, MessageTemplate.MatchConversationId(ids[i]));
+                }
+                return template;
+            }
+
+            /**
+             * A MainAgent wants us for its session. Only a pooled player (or
+             * one already in that session) agrees; MainAgents compete for pool
+             * players, and the first lease wins.
+             */
+            private void handleLease(ACLMessage msg) {
+                String wanted = MessageCodec.decode(msg.getByteSequenceContent(), MessageCodec.Lease.class).session();
+                boolean agree = session.equals(wanted) || session.equals(PlayerDirectory.POOL);
+                if (agree && !session.equals(wanted)) {
+                    try {
+                        PlayerDirectory.modify(myAgent, wanted);
+                        session = wanted;
+                        boardAgent = null;
+                        log.debug("Leased to session {}", session);
+                    } catch (FIPAException e) {
+                        log.warn("Cannot join session {}: {}", wanted, e.getMessage());
+                        agree = false;
+                    }
+                }
+                ACLMessage reply = msg.createReply();
+                reply.setPerformative(agree ? ACLMessage.AGREE : ACLMessage.REFUSE);
+                send(reply);
+            }
+
+            // Our session is over: forget the last game and go back to the pool
+            private void handleRelease() {
+                resetGame();
+                try {
+                    PlayerDirectory.modify(myAgent, PlayerDirectory.POOL);
+                    session = PlayerDirectory.POOL;
+                    boardAgent = null;
+                    log.debug("Back in the pool");
+                } catch (FIPAException e) {
+                    log.warn("Cannot return to the pool: {}", e.getMessage());
+                }
+            }
+
+            // Everything a game leaves behind, so a reused agent starts the next one fresh
+            private void resetGame() {
+                pending = null;
+                blockedTurns = 0;
+                strategy = ownStrategy;
+                tokens = new TokenInventory();
+                memory = new TradeMemory();
+                otherPlayers = new ArrayList<>();
+                partners = new HashMap<>();
+                board = null;
+                boardSince = 0;
+                boardQuery = null;
+            }
+
+            /**
+             * Initialization message: start, goal, tokens, player list, game
+             * settings and the board (see MessageCodec.Init). It also resets
+             * an agent reused from an earlier game.
+             */
+            private void handleInit(MessageCodec.Init init) {
+                resetGame();
+                x = init.startX();
+                y = init.startY();
+                goalX = init.goalX();
+                goalY = init.goalY();
+                tokens = new TokenInventory(init.tokens());
+
+                // Dynamic list of players received in init message
+                otherPlayers = new ArrayList<>(init.players());
+                otherPlayers.remove(getLocalName());
+
+                settings = init.settings();
+                grid = init.grid();
+                planner = new PathPlanner(grid, goalX, goalY);
+                rand = GameRandom.player(init.seed(), init.players().indexOf(getLocalName()));
+                if (settings.sharedReputation()) {
+                    board = new Reputation();
+                    memory.share(board);
+                }
+
+                log.info("Initialized at ({},{}), goal: ({},{})", x, y, goalX, goalY);
+                log.info("Has tokens: {}", tokens);
+            }
+
+            /**
+             * A restored game: after its init message MainAgent sends what
+             * only we knew about the game when it was saved.
+             */
+            private void handleRestore(MessageCodec.AgentState state) {
+                try {
+                    strategy = NegotiationStrategies.byName(state.strategy());
+                } catch (IllegalArgumentException e) {
+                    log.warn("{}; keeping {}", e.getMessage(), strategy.name());
+                }
+                blockedTurns = state.blockedTurns();
+                memory = new TradeMemory(state.memory());
+                memory.share(board);
+                planner.resume(state.route());
+                rand = new GameRandom(state.randomState());
+                log.info("Restored: trading {}, blocked {} turns", strategy.name(), blockedTurns);
+            }
+
+            // MainAgent saves the game: answer with our part of it
+            private void handleCheckpoint(ACLMessage msg) {
+                ACLMessage reply = msg.createReply();
+                reply.setPerformative(ACLMessage.INFORM);
+                reply.setByteSequenceContent(MessageCodec.encode(
+                        new MessageCodec.AgentState(strategy.name(), blockedTurns, rand.state(), memory, planner.route())));
+                send(reply);
+            }
+
+            /**
+             * Movement: follow the token-aware route from the PathPlanner, which
+             * prefers cells whose color we can pay for. When blocked, propose a
+             * trade (with tradeRadius only to the partners MainAgent named);
+             * the turn result is sent once the trade is settled.
+             */
+            private void handleTurn(ACLMessage msg) {
+                MessageCodec.TurnRequest request = MessageCodec.decode(msg.getByteSequenceContent(), MessageCodec.TurnRequest.class);
+                List<String> candidates = request.partners() == null ? otherPlayers : request.partners();
+                log.debug("Other players: {}", candidates);
+                memory.advance(Reputation.roundOf(settings, request.turn()));
+                queryBoard();
+
+                int next = planner.nextStep(x, y, tokens);
+                int nextX = next % grid.width();
+                int nextY = next / grid.width();
+                TokenColor requiredColor = grid.colorAt(next);
+
+                boolean canMove = tokens.take(requiredColor);
+
+                if (canMove) {
+                    x = nextX;
+                    y = nextY;
+                    blockedTurns = 0;
+                    log.debug("Moved to ({},{}) using '{}'.", x, y, requiredColor);
+                    sendResult(msg, true);
+                    return;
+                }
+
+                blockedTurns++;
+
+                if (settings.tradeClearing()) {
+                    // MainAgent matches our order with everyone else's; the round result brings the token
+                    log.debug("Blocked ({}). Needs '{}'. Ordering it from the clearing.", blockedTurns, requiredColor);
+                    metrics.tradeProposed();
+                    sendResult(msg, blockedTurns < settings.maxBlockedTurns(), null,
+                            new MessageCodec.TradeOrder(requiredColor, TradeClearing.spare(tokens, requiredColor)));
+                    return;
+                }
+
+                if (candidates.isEmpty()) {
+                    log.debug("Blocked ({}). Needs '{}'. Nobody near enough to trade with.", blockedTurns, requiredColor);
+                    sendResult(msg, blockedTurns < settings.maxBlockedTurns());
+                    return;
+                }
+                String other = strategy.choosePartner(candidates, memory);
+                log.debug("Blocked ({}). Needs '{}'. Proposing trade to {}", blockedTurns, requiredColor, other);
+
+                TokenColor offer = strategy.chooseOffer(tokens, requiredColor);
+                String replyWith = getLocalName() + "-trade-" + (++proposalCount);
+
+                // Half the turn timeout, so the turn result still reaches MainAgent in time
+                long deadline = System.currentTimeMillis() + Math.max(1, settings.turnTimeoutMs() / 2);
+
+                metrics.tradeProposed();
+                AID partner = partner(other);
+                if (partner != null) {
+                    ACLMessage propose = new ACLMessage(ACLMessage.PROPOSE);
+                    propose.addReceiver(partner);
+                    propose.setConversationId("negotiation");
+                    propose.setReplyWith(replyWith);
+                    propose.setByteSequenceContent(MessageCodec.encode(new MessageCodec.TradeProposal(requiredColor, offer, request.turn())));
+                    send(propose);
+                } else {
+                    // Not in the DF (any more): the trade times out right away
+                    log.warn("{} is not registered, no trade", other);
+                    deadline = System.currentTimeMillis();
+                }
+                pending = new PendingTrade(msg, request.turn(), other, requiredColor, offer, deadline, MessageTemplate.and(
+                        MessageTemplate.MatchConversationId("negotiation"),
+                        MessageTemplate.MatchInReplyTo(replyWith)));
+            }
+
+            // Settle the pending trade with its reply, or null when it timed out
+            private void finishTrade(ACLMessage response) {
+                PendingTrade trade = pending;
+                pending = null;
+
+                boolean accepted = response != null && response.getPerformative() == ACLMessage.ACCEPT_PROPOSAL;
+                boolean betrayed = false;
+                metrics.tradeAnswered(accepted);
+                if (accepted) {
+                    log.debug("Received accepted proposal from {}.", trade.other);
+
+                    // The partner learns from the payment whether we paid, and remembers it
+                    boolean honest = strategy.pays(trade.other, memory, settings.betrayalProbability(), rand);
+                    TokenColor payment = null;
+                    if (honest && trade.offer != null) {
+                        tokens.take(trade.offer);
+                        payment = trade.offer;
+                        log.debug("Sent token: '{}'", trade.offer);
+                    } else {
+                        betrayed = true;
+                        metrics.betrayal(getLocalName());
+                        log.info("Betrayed {} and sent nothing!", trade.other);
+                    }
+                    ACLMessage pay = new ACLMessage(ACLMessage.INFORM);
+                    pay.addReceiver(response.getSender());
+                    pay.setConversationId("trade-payment");
+                    pay.setByteSequenceContent(MessageCodec.encode(new MessageCodec.TradePayment(payment, trade.turnNumber)));
+                    send(pay);
+
+                    TokenColor tokenGiven = MessageCodec.decode(response.getByteSequenceContent(), MessageCodec.TradeReply.class).token();
+                    if (tokenGiven != null) {
+                        tokens.give(tokenGiven);
+                        log.debug("Received token: '{}'", tokenGiven);
+                    }
+                }
+                MessageCodec.TradeReport report = new MessageCodec.TradeReport(trade.other, trade.need, trade.offer, accepted, betrayed);
+                if (!accepted) {
+                    log.debug("Negotiation {}", response == null ? "timed out." : "rejected.");
+
+                    if (blockedTurns >= settings.maxBlockedTurns()) {
+                        log.info("Blocked {} times. Ending game.", settings.maxBlockedTurns());
+                        sendResult(trade.turn, false, report);
+                        return;
+                    }
+                }
+
+                sendResult(trade.turn, true, report);
+                log.debug("Now holds: {}", tokens);
+            }
+
+            /**
+             * Simultaneous rounds: MainAgent confirms where we ended up. A move
+             * that lost its cell to another player is undone (the result hands
+             * the token back); the planner notices and replans from here. With
+             * exclusiveCells a move into a taken cell is undone the same way, in
+             * any mode. With trade clearing the trade that filled our order is
+             * applied too. Our own tokens stay the base: trades we served since
+             * our turn result are not in MainAgent's copy.
+             */
+            private void handleRoundResult(MessageCodec.TurnResult result) {
+                if (result.x() != x || result.y() != y) {
+                    log.debug("Stays at ({},{}), cell was taken.", result.x(), result.y());
+                }
+                MessageCodec.TradeReport trade = result.trade();
+                if (trade != null) {
+                    log.debug("Cleared: got '{}' from {}, gave '{}'", trade.need(), trade.partner(), trade.offer());
+                }
+                x = result.x();
+                y = result.y();
+                for (TokenColor refund : result.tokens().toList()) tokens.give(refund);
+                if (trade != null) {
+                    tokens.give(trade.need());
+                    if (trade.offer() != null) tokens.take(trade.offer());
+                }
+            }
+
+            /**
+             * Handle incoming trade proposal: our strategy decides, and we can
+             * only accept if we have the needed token.
+             */
+            private void handleProposal(ACLMessage msg) {
+                MessageCodec.TradeProposal proposal = MessageCodec.decode(msg.getByteSequenceContent(), MessageCodec.TradeProposal.class);
+                TokenColor need = proposal.need();
+                String sender = msg.getSender().getLocalName();
+                memory.advance(Reputation.roundOf(settings, proposal.turn()));
+
+                boolean accept = strategy.accepts(sender, need, tokens, memory) && tokens.take(need);
+
+                ACLMessage reply = msg.createReply();
+                if (accept) {
+                    reply.setPerformative(ACLMessage.ACCEPT_PROPOSAL);
+                    reply.setByteSequenceContent(MessageCodec.encode(new MessageCodec.TradeReply(need)));
+                    log.debug("Accepted proposal from {}, sent token: {}", sender, need);
+                } else {
+                    reply.setPerformative(ACLMessage.REJECT_PROPOSAL);
+                    reply.setByteSequenceContent(MessageCodec.encode(new MessageCodec.TradeReply(null)));
+                    log.debug("Rejected proposal from {} for '{}'.", sender, need);
+                }
+
+                send(reply);
+            }
+
+            // The proposer of a trade we accepted paid us, or sent nothing (token null): remember which
+            private void handlePayment(ACLMessage msg) {
+                MessageCodec.TradePayment payment = MessageCodec.decode(msg.getByteSequenceContent(), MessageCodec.TradePayment.class);
+                String sender = msg.getSender().getLocalName();
+                int round = Reputation.roundOf(settings, payment.turn());
+                if (payment.token() != null) {
+                    tokens.give(payment.token());
+                    memory.paidBy(sender, round);
+                    log.debug("Paid '{}' by {}", payment.token(), sender);
+                } else {
+                    memory.betrayedBy(sender, round);
+                    log.info("Betrayed by {}!", sender);
+                }
+            }
+
+            /**
+             * Ask the reputation board what changed since our copy was last
+             * updated; the answer comes in before our next turn. Only one
+             * query is in flight at a time.
+             */
+            private void queryBoard() {
+                if (board == null || boardQuery != null) return;
+                if (boardAgent == null) {
+                    try {
+                        boardAgent = PlayerDirectory.findBoard(myAgent, session);
+                    } catch (FIPAException e) {
+                        log.warn("DF search failed: {}", e.getMessage());
+                    }
+                    if (boardAgent == null) return;
+                }
+                boardQuery = getLocalName() + "-reputation-" + (++proposalCount);
+                ACLMessage query = new ACLMessage(ACLMessage.QUERY_REF);
+                query.addReceiver(boardAgent);
+                query.setConversationId("reputation-query");
+                query.setReplyWith(boardQuery);
+                query.setByteSequenceContent(MessageCodec.encode(new MessageCodec.ReputationQuery(boardSince)));
+                send(query);
+            }
+
+            // The board's answer; one for an earlier game (or a query since reset) is dropped
+            private void handleScores(ACLMessage msg) {
+                if (board == null || boardQuery == null || !boardQuery.equals(msg.getInReplyTo())) return;
+                MessageCodec.ReputationScores scores = MessageCodec.decode(msg.getByteSequenceContent(), MessageCodec.ReputationScores.class);
+                board.update(scores.origin(), scores.round(), scores.scores());
+                boardSince = scores.round();
+                boardQuery = null;
+            }
+
+            private void sendResult(ACLMessage turn, boolean stillPlaying) {
+                sendResult(turn, stillPlaying, null, null);
+            }
+
+            private void sendResult(ACLMessage turn, boolean stillPlaying, MessageCodec.TradeReport trade) {
+                sendResult(turn, stillPlaying, trade, null);
+            }
+
+            // Answer the turn request; in-reply-to ties the result to that turn
+            private void sendResult(ACLMessage turn, boolean stillPlaying, MessageCodec.TradeReport trade,
+                                    MessageCodec.TradeOrder order) {
+                ACLMessage result = turn.createReply();
+                result.setPerformative(ACLMessage.INFORM);
+                result.setConversationId("turn-result");
+                result.setByteSequenceContent(MessageCodec.encode(new MessageCodec.TurnResult(x, y, tokens, stillPlaying, trade, order)));
+                send(result);
+            }
+        }
+
+        // A proposal waiting for its reply, with the turn request to answer afterwards
+        private record PendingTrade(ACLMessage turn, int turnNumber, String other, TokenColor need, TokenColor offer, long deadline,
+                                    MessageTemplate template) { }
+    }
@@ -0,0 +1,108 @@
+package gridgame.agents;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.SearchConstraints;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Yellow-pages lookup of player agents. Every PlayerAgent registers a
+ * "gridgame-player" service with the DF, so MainAgent and the other players
+ * find each other's AIDs wherever (in whichever container) they run,
+ * instead of building AIDs from local names. The service carries the
+ * player's GameSession id, and searches only return players of one session.
+ *
+ * Idle players are in the POOL session. A MainAgent leases players from
+ * the pool for its session and releases them when the session ends; the
+ * player updates its registration each time.
+ *
+ * With sharedReputation a session's MainAgent also registers a
+ * "gridgame-reputation" service, its reputation board, which the players
+ * of that session find the same way.
+ */
+final class PlayerDirectory {
+
+    static final String SERVICE_TYPE = "gridgame-player";
+    static final String REPUTATION_TYPE = "gridgame-reputation";
+    static final String SESSION_PROPERTY = "session";
+    static final String POOL = "pool";
+
+    // Player2 before Player10
+    static final Comparator<String> BY_NUMBER = Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private PlayerDirectory() {
+    }
+
+    static void register(Agent agent, String session) throws FIPAException {
+        DFService.register(agent, description(agent, SERVICE_TYPE, session));
+    }
+
+    // Move a registered player to another session (or back to the POOL)
+    static void modify(Agent agent, String session) throws FIPAException {
+        DFService.modify(agent, description(agent, SERVICE_TYPE, session));
+    }
+
+    // A MainAgent offering its session's reputation board
+    static void registerBoard(Agent agent, String session) throws FIPAException {
+        DFService.register(agent, description(agent, REPUTATION_TYPE, session));
+    }
+
+    private static DFAgentDescription description(Agent agent, String type, String session) {
+        ServiceDescription service = new ServiceDescription();
+        service.setType(type);
+        service.setName(agent.getLocalName());
+        service.addProperties(new Property(SESSION_PROPERTY, session));
+
+        DFAgentDescription description = new DFAgentDescription();
+        description.setName(agent.getAID());
+        description.addServices(service);
+        return description;
+    }
+
+    static void deregister(Agent agent) {
+        try {
+            DFService.deregister(agent);
+        } catch (FIPAException e) {
+            // Already gone, e.g. the platform is shutting down
+        }
+    }
+
+    /**
+     * The registered players of a session by local name, in player number
+     * order. The DF returns at most 100 results by default, so the limit is
+     * lifted.
+     */
+    static Map<String, AID> search(Agent agent, String session) throws FIPAException {
+        SearchConstraints all = new SearchConstraints();
+        all.setMaxResults(-1L);
+
+        Map<String, AID> players = new TreeMap<>(BY_NUMBER);
+        for (DFAgentDescription found : DFService.search(agent, template(SERVICE_TYPE, session), all)) {
+            players.put(found.getName().getLocalName(), found.getName());
+        }
+        return players;
+    }
+
+    // The session's reputation board, or null when its MainAgent has none (yet)
+    static AID findBoard(Agent agent, String session) throws FIPAException {
+        DFAgentDescription[] found = DFService.search(agent, template(REPUTATION_TYPE, session));
+        return found.length > 0 ? found[0].getName() : null;
+    }
+
+    private static DFAgentDescription template(String type, String session) {
+        ServiceDescription service = new ServiceDescription();
+        service.setType(type);
+        service.addProperties(new Property(SESSION_PROPERTY, session));
+        DFAgentDescription template = new DFAgentDescription();
+        template.addServices(service);
+        return template;
+    }
+}
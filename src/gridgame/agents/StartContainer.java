@@ -0,0 +1,57 @@
+package gridgame.agents;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentContainer;
+import jade.wrapper.StaleProxyException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts a peripheral container that joins a running platform and hosts
+ * some of the players. StartJADE runs it in separate JVMs with --jvms; it
+ * can also be started by hand, e.g. on another machine.
+ *
+ * Usage: StartContainer MAIN_HOST MAIN_PORT CONTAINER_NAME PLAYER[:SESSION[:STRATEGY]]...
+ * Players without a session start in the pool, for any MainAgent to lease;
+ * STRATEGY is a NegotiationStrategies name (default: "default").
+ */
+public class StartContainer {
+
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.err.println("Usage: StartContainer MAIN_HOST MAIN_PORT CONTAINER_NAME PLAYER[:SESSION[:STRATEGY]]...");
+            System.exit(1);
+            return;
+        }
+
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(true); // this JVM ends with its container
+        AgentContainer container = rt.createAgentContainer(profile(args[0], Integer.parseInt(args[1]), args[2]));
+        try {
+            startPlayers(container, Arrays.asList(args).subList(3, args.length));
+        } catch (StaleProxyException e) {
+            e.printStackTrace();
+        }
+    }
+
+    static Profile profile(String mainHost, int mainPort, String containerName) {
+        Profile p = new ProfileImpl();
+        p.setParameter(Profile.MAIN_HOST, mainHost);
+        p.setParameter(Profile.MAIN_PORT, String.valueOf(mainPort));
+        p.setParameter(Profile.CONTAINER_NAME, containerName);
+        return p;
+    }
+
+    // Players ("NAME[:SESSION[:STRATEGY]]") register with the DF themselves, so MainAgent finds them in any container
+    static void startPlayers(AgentContainer container, List<String> players) throws StaleProxyException {
+        for (String player : players) {
+            String[] spec = player.split(":", 3);
+            String session = spec.length < 2 || spec[1].isEmpty() ? PlayerDirectory.POOL : spec[1];
+            Object[] args = spec.length < 3 ? new Object[]{session} : new Object[]{session, spec[2]};
+            container.createNewAgent(spec[0], PlayerAgent.class.getName(), args).start();
+        }
+    }
+}
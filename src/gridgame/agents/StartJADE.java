@@ -0,0 +1,230 @@
+package gridgame.agents;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentContainer;
+import jade.wrapper.AgentController;
+import jade.wrapper.StaleProxyException;
+
+import gridgame.GameResult;
+import gridgame.GameSettings;
+import gridgame.GameSnapshot;
+import gridgame.NegotiationStrategies;
+import gridgame.NegotiationStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class StartJADE {
+
+    private static final int DEFAULT_PORT = 1099;
+
+    // How players are spread over the peripheral containers
+    enum Placement {
+        ROUND_ROBIN, // Player i goes to container i % n
+        BLOCK;       // each container gets a contiguous run of players
+
+        int containerOf(int player, int players, int containers) {
+            return this == ROUND_ROBIN ? player % containers : (int) ((long) player * containers / players);
+        }
+
+        static Placement parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    // Usage: StartJADE [settings.properties] [key=value ...]  (see GameSettings)
+    //        [--games=G] [--parallel=P] [--seed=S] [--strategies=default,greedy,...] [--restore=FILE]
+    //        [--containers=N] [--placement=round-robin|block] [--jvms] [--port=1099]
+    // --games plays G games without windows and prints their results, P at a time (default all):
+    // P sessions each lease numPlayers players from one pool of P * numPlayers agents and play
+    // games on them until G have been played, so no agent is created after the start. With
+    // --containers the players run in N peripheral containers instead of the main one, in this
+    // JVM or, with --jvms, in one JVM each (StartContainer). --strategies hands the players
+    // NegotiationStrategies in turn: Player1 the first, Player2 the second, and so on.
+    // --restore continues a GameSnapshot (e.g. a MainAgent checkpoint) as the first game, with its settings.
+    // --seed makes the games replayable: they get seeds S, S + 1, ... (random ones otherwise, which are
+    // reported with each result all the same).
+    public static void main(String[] args) {
+        List<String> settingsArgs = new ArrayList<>();
+        int games = 1;
+        int parallel = 0;
+        List<NegotiationStrategy> strategies = List.of(NegotiationStrategies.DEFAULT);
+        int containers = 0;
+        Placement placement = Placement.ROUND_ROBIN;
+        boolean separateJvms = false;
+        int port = DEFAULT_PORT;
+        String restoreFile = null;
+        LongSupplier seeds = GameSession.randomSeeds();
+
+        // Load and validate the launch options and game settings before anything is started
+        GameSettings settings;
+        GameSnapshot restore = null;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--games=")) {
+                    games = Integer.parseInt(arg.substring("--games=".length()));
+                    if (games < 1) throw new IllegalArgumentException("--games must be >= 1");
+                } else if (arg.startsWith("--parallel=")) {
+                    parallel = Integer.parseInt(arg.substring("--parallel=".length()));
+                    if (parallel < 1) throw new IllegalArgumentException("--parallel must be >= 1");
+                } else if (arg.startsWith("--seed=")) {
+                    seeds = GameSession.seedsFrom(new AtomicLong(Long.parseLong(arg.substring("--seed=".length()))));
+                } else if (arg.startsWith("--strategies=")) {
+                    strategies = NegotiationStrategies.parse(arg.substring("--strategies=".length()));
+                } else if (arg.startsWith("--containers=")) {
+                    containers = Integer.parseInt(arg.substring("--containers=".length()));
+                    if (containers < 0) throw new IllegalArgumentException("--containers must be >= 0");
+                } else if (arg.startsWith("--placement=")) {
+                    placement = Placement.parse(arg.substring("--placement=".length()));
+                } else if (arg.equals("--jvms")) {
+                    separateJvms = true;
+                } else if (arg.startsWith("--restore=")) {
+                    restoreFile = arg.substring("--restore=".length());
+                } else if (arg.startsWith("--port=")) {
+                    port = Integer.parseInt(arg.substring("--port=".length()));
+                } else if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option " + arg);
+                } else {
+                    settingsArgs.add(arg);
+                }
+            }
+            settings = GameSettings.fromArgs(settingsArgs.toArray(new String[0]));
+            if (restoreFile != null) {
+                restore = GameSnapshot.read(Path.of(restoreFile));
+                settings = restore.settings();
+            }
+            parallel = parallel == 0 ? games : Math.min(parallel, games);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Invalid game settings: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        // Create JADE runtime
+        Runtime rt = Runtime.instance();
+
+        // Create main container profile
+        Profile p = new ProfileImpl();
+        p.setParameter(Profile.GUI, "false"); // show JADE GUI
+        p.setParameter(Profile.MAIN_PORT, String.valueOf(port));
+
+        // Create main container
+        AgentContainer mainContainer = rt.createMainContainer(p);
+
+        // A single session keeps the plain MainAgent name; with several, it gets the session as prefix.
+        // Players all start in the pool.
+        List<String> sessions = new ArrayList<>();
+        for (int s = 1; s <= parallel; s++) {
+            sessions.add(parallel == 1 ? GameSession.DEFAULT_ID : "S" + s);
+        }
+        List<String> allPlayers = new ArrayList<>();
+        for (int i = 1; i <= parallel * settings.numPlayers(); i++) {
+            allPlayers.add("Player" + i + "::" + strategies.get((i - 1) % strategies.size()).name());
+        }
+
+        // Player names per peripheral container
+        List<List<String>> groups = new ArrayList<>();
+        for (int c = 0; c < containers; c++) groups.add(new ArrayList<>());
+        for (int i = 0; i < allPlayers.size() && containers > 0; i++) {
+            groups.get(placement.containerOf(i, allPlayers.size(), containers)).add(allPlayers.get(i));
+        }
+
+        List<GameResult> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch finished = new CountDownLatch(games);
+        AtomicInteger gamesLeft = new AtomicInteger(games);
+
+        try {
+            // Launch main agents (game managers); each leases its session's players from the pool
+            for (String id : sessions) {
+                // Only the first session continues the restored game
+                GameSnapshot start = id.equals(sessions.get(0)) ? restore : null;
+                GameSession session = games == 1
+                        ? new GameSession(id, settings, true, GameSession.oneGame(), result -> System.exit(0), seeds, start)
+                        : new GameSession(id, settings, false, GameSession.gamesFrom(gamesLeft), result -> {
+                            results.add(result);
+                            finished.countDown();
+                        }, seeds, start);
+                String name = parallel == 1 ? "MainAgent" : id + "-MainAgent";
+                AgentController mainAgent = mainContainer.createNewAgent(name, MainAgent.class.getName(), new Object[]{session});
+                mainAgent.start();
+            }
+
+            // Launch player agents
+            if (containers == 0) {
+                StartContainer.startPlayers(mainContainer, allPlayers);
+            }
+            for (int c = 0; c < containers; c++) {
+                if (groups.get(c).isEmpty()) continue;
+                String name = "Players-" + (c + 1);
+                if (separateJvms) {
+                    startContainerJvm(name, port, groups.get(c));
+                } else {
+                    StartContainer.startPlayers(rt.createAgentContainer(StartContainer.profile("localhost", port, name)), groups.get(c));
+                }
+            }
+
+        } catch (StaleProxyException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            System.err.println("Cannot start a player container: " + e.getMessage());
+            System.exit(1);
+        }
+
+        if (games > 1) {
+            awaitGames(finished, results);
+        }
+    }
+
+    // Wait for all sessions to end, print a summary and shut the platform down
+    private static void awaitGames(CountDownLatch finished, List<GameResult> results) {
+        long start = System.nanoTime();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] outcomes = new long[GameResult.Outcome.values().length];
+        for (GameResult result : results) outcomes[result.outcome().ordinal()]++;
+        double avgTurns = results.stream().mapToInt(GameResult::turns).average().orElse(0);
+        System.out.println(String.format("%d games in %.1fs: wins=%d draws=%d turn-limit=%d avg turns=%.1f",
+                results.size(), seconds, outcomes[GameResult.Outcome.WIN.ordinal()], outcomes[GameResult.Outcome.DRAW.ordinal()],
+                outcomes[GameResult.Outcome.TURN_LIMIT.ordinal()], avgTurns));
+        System.exit(0);
+    }
+
+    /**
+     * Run StartContainer in a new local JVM with our class path and gridgame.*
+     * system properties (log levels and the like). The JVM is killed when
+     * this one exits.
+     */
+    private static void startContainerJvm(String name, int port, List<String> players) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("gridgame.")) command.add("-D" + key + "=" + System.getProperty(key));
+        }
+        command.add(StartContainer.class.getName());
+        command.add("localhost");
+        command.add(String.valueOf(port));
+        command.add(name);
+        command.addAll(players);
+
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        java.lang.Runtime.getRuntime().addShutdownHook(new Thread(process::destroy));
+    }
+}